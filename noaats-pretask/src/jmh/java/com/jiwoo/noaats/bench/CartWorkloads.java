@@ -0,0 +1,75 @@
+package com.jiwoo.noaats.bench;
+
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.ProductItem;
+import com.jiwoo.noaats.form.DiscountForm;
+
+import java.util.Random;
+
+/**
+ * 벤치마크용 장바구니 생성기.
+ * seed가 같으면 항상 같은 폼 묶음을 만든다(측정 간 비교용).
+ */
+public final class CartWorkloads {
+
+    // 상품 자체 할인 구성
+    public enum DiscountMix { NONE, FIXED, PERCENT, MIXED }
+
+    private CartWorkloads() {
+    }
+
+    static DiscountForm[] generate(int count, int products, int coupons, DiscountMix mix, Integer maxOrders, long seed) {
+        Random r = new Random(seed);
+        DiscountForm[] forms = new DiscountForm[count];
+        for (int i = 0; i < count; i++) {
+            forms[i] = cart(r, products, coupons, mix, maxOrders);
+        }
+        return forms;
+    }
+
+    private static DiscountForm cart(Random r, int products, int coupons, DiscountMix mix, Integer maxOrders) {
+        DiscountForm f = new DiscountForm();
+        for (int i = 0; i < products; i++) {
+            ProductItem p = new ProductItem();
+            p.setName("상품" + i);
+            p.setPrice(1000 * (1 + r.nextInt(80)) + (r.nextBoolean() ? 0 : 500));
+            p.setQuantity(1 + r.nextInt(3));
+
+            String type = discountType(r, mix);
+            p.setDiscountType(type);
+            if ("fixed".equals(type)) p.setDiscountValue((double) (100 * r.nextInt(20)));
+            if ("percent".equals(type)) p.setDiscountValue((double) (5 * (1 + r.nextInt(8))));
+            f.getProducts().add(p);
+        }
+        for (int i = 0; i < coupons; i++) {
+            Coupon c = new Coupon();
+            c.setName("쿠폰" + i);
+            boolean percent = r.nextBoolean();
+            c.setType(percent ? "percent" : "fixed");
+            c.setValue(percent ? 5.0 + r.nextInt(20) : 1000.0 * (1 + r.nextInt(10)));
+            c.setMinSpend(10000 * r.nextInt(10));
+            c.setMaxDiscount(percent ? 5000 * r.nextInt(4) : 0);
+            f.getCoupons().add(c);
+        }
+        f.setThresholdAmount(50000);
+        f.setThresholdOff(5000);
+        f.setPromoBeforeCoupon(r.nextBoolean());
+        f.setShippingFee(3000);
+        f.setFreeShippingThreshold(30000);
+        f.setMaxOrders(maxOrders);
+        return f;
+    }
+
+    private static String discountType(Random r, DiscountMix mix) {
+        switch (mix) {
+            case FIXED:
+                return "fixed";
+            case PERCENT:
+                return "percent";
+            case MIXED:
+                return new String[]{"none", "fixed", "percent"}[r.nextInt(3)];
+            default:
+                return "none";
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.jiwoo.noaats.bench;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.DiscountResult;
+import com.jiwoo.noaats.form.DiscountForm;
+import com.jiwoo.noaats.service.DiscountCalculatorService;
+import com.jiwoo.noaats.service.DiscountMetrics;
+import com.jiwoo.noaats.service.DiscountResultCache;
+import com.jiwoo.noaats.service.SplitEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * calculateBestStrategy 벤치마크.
+ * - singleOrder: 최대 주문 1건 (1주문 최적만)
+ * - twoOrders: 기본 폼 (1주문 vs 2주문 분할)
+ * - manyOrders: 최대 주문 3건 (부분집합 DP는 partition-max-products 이하에서만 실제 탐색)
+ *
+ * 실행: mvn -Pjmh test-compile exec:exec
+ * 일부만: mvn -Pjmh test-compile exec:exec -Djmh.args="twoOrders -p products=40 -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscountCalculatorBenchmark {
+
+    // 같은 폼만 반복하면 분기 예측/캐시가 한쪽으로 치우치므로 여러 장바구니를 돌려 가며 사용
+    private static final int CARTS = 32;
+
+    @Param({"5", "12", "40"})
+    public int products;
+
+    @Param({"3", "16"})
+    public int coupons;
+
+    @Param({"MIXED", "NONE", "FIXED", "PERCENT"})
+    public CartWorkloads.DiscountMix discounts;
+
+    @Param({"AUTO"})
+    public SplitEngine engine;
+
+    private ForkJoinPool pool;
+    private DiscountCalculatorService calculator;
+    private DiscountForm[] single;
+    private DiscountForm[] two;
+    private DiscountForm[] many;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        DiscountProperties properties = new DiscountProperties();
+        properties.getSplit().setEngine(engine);
+        // 계산 자체를 재기 위해 결과 캐시는 끈다
+        properties.getCache().setEnabled(false);
+        pool = new ForkJoinPool();
+        // 운영과 같이 단계별 타이머 기록 비용까지 포함
+        calculator = new DiscountCalculatorService(properties, pool, new DiscountResultCache(properties),
+                new DiscountMetrics(new SimpleMeterRegistry()));
+
+        single = CartWorkloads.generate(CARTS, products, coupons, discounts, 1, 42);
+        two = CartWorkloads.generate(CARTS, products, coupons, discounts, null, 42);
+        many = CartWorkloads.generate(CARTS, products, coupons, discounts, 3, 42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public DiscountResult singleOrder() {
+        return calculator.calculateBestStrategy(next(single));
+    }
+
+    @Benchmark
+    public DiscountResult twoOrders() {
+        return calculator.calculateBestStrategy(next(two));
+    }
+
+    @Benchmark
+    public DiscountResult manyOrders() {
+        return calculator.calculateBestStrategy(next(many));
+    }
+
+    private DiscountForm next(DiscountForm[] forms) {
+        cursor = (cursor + 1) % forms.length;
+        return forms[cursor];
+    }
+}
@@ -0,0 +1,131 @@
+package com.jiwoo.noaats.load;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 부하 테스트용 장바구니 폼 본문(application/x-www-form-urlencoded, 화면 /calculate와 같은 필드).
+ * 상품 라인 수를 비율로 섞는다: "1:30,2:25,3:20" = 1줄 30%, 2줄 25%, 3줄 20% (비율 합은 아무 값이나).
+ * seed가 같으면 항상 같은 본문 묶음을 만든다(커밋 간 비교용).
+ */
+final class CartMix {
+
+    private static final String[] DISCOUNT_TYPES = {"none", "fixed", "percent", "bundle"};
+
+    private final int[] lines;
+    private final int[] weights;
+    private final int weightSum;
+
+    private CartMix(int[] lines, int[] weights) {
+        this.lines = lines;
+        this.weights = weights;
+        int sum = 0;
+        for (int w : weights) sum += w;
+        this.weightSum = sum;
+    }
+
+    static CartMix parse(String mix) {
+        String[] parts = mix.split(",");
+        int[] lines = new int[parts.length];
+        int[] weights = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String[] kv = parts[i].trim().split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("mix는 '라인수:비율,...' 형식입니다: " + mix);
+            lines[i] = Integer.parseInt(kv[0].trim());
+            weights[i] = Integer.parseInt(kv[1].trim());
+            if (lines[i] <= 0 || weights[i] < 0) throw new IllegalArgumentException("mix 값이 잘못되었습니다: " + parts[i]);
+        }
+        CartMix parsed = new CartMix(lines, weights);
+        if (parsed.weightSum <= 0) throw new IllegalArgumentException("mix 비율 합이 0입니다: " + mix);
+        return parsed;
+    }
+
+    // 장바구니 count개 본문. 쿠폰은 0~maxCoupons장
+    String[] bodies(int count, int maxCoupons, int maxOrders, long seed) {
+        Random r = new Random(seed);
+        String[] bodies = new String[count];
+        for (int i = 0; i < count; i++) {
+            bodies[i] = body(r, pickLines(r), r.nextInt(maxCoupons + 1), maxOrders);
+        }
+        return bodies;
+    }
+
+    // 평균 라인 수 (보고서용)
+    double averageLines() {
+        double sum = 0;
+        for (int i = 0; i < lines.length; i++) sum += (double) lines[i] * weights[i];
+        return sum / weightSum;
+    }
+
+    @Override
+    public String toString() {
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) parts.add(lines[i] + ":" + weights[i]);
+        return String.join(",", parts);
+    }
+
+    private int pickLines(Random r) {
+        int x = r.nextInt(weightSum);
+        for (int i = 0; i < lines.length; i++) {
+            x -= weights[i];
+            if (x < 0) return lines[i];
+        }
+        return lines[lines.length - 1];
+    }
+
+    private static String body(Random r, int products, int coupons, int maxOrders) {
+        Form f = new Form();
+        for (int i = 0; i < products; i++) {
+            String p = "products[" + i + "].";
+            f.add(p + "name", "상품" + i);
+            f.add(p + "price", 1000 * (1 + r.nextInt(80)) + (r.nextBoolean() ? 0 : 500));
+            f.add(p + "quantity", 1 + r.nextInt(3));
+            f.add(p + "active", true);
+
+            String type = DISCOUNT_TYPES[r.nextInt(DISCOUNT_TYPES.length)];
+            f.add(p + "discountType", type);
+            if ("fixed".equals(type)) f.add(p + "discountValue", 100 * r.nextInt(20));
+            if ("percent".equals(type)) f.add(p + "discountValue", 5 * (1 + r.nextInt(8)));
+            if ("bundle".equals(type)) {
+                f.add(p + "bundleBuy", 1 + r.nextInt(2));
+                f.add(p + "bundleFree", 1);
+            }
+        }
+        for (int i = 0; i < coupons; i++) {
+            String c = "coupons[" + i + "].";
+            boolean percent = r.nextBoolean();
+            f.add(c + "name", "쿠폰" + i);
+            f.add(c + "type", percent ? "percent" : "fixed");
+            f.add(c + "value", percent ? 5 + r.nextInt(20) : 1000 * (1 + r.nextInt(10)));
+            f.add(c + "minSpend", 10000 * r.nextInt(10));
+            f.add(c + "maxDiscount", percent ? 5000 * r.nextInt(4) : 0);
+            f.add(c + "active", true);
+        }
+        f.add("thresholdAmount", 50000);
+        f.add("thresholdOff", 5000);
+        f.add("promoBeforeCoupon", r.nextBoolean());
+        f.add("shippingFee", 3000);
+        f.add("freeShippingThreshold", 30000);
+        f.add("maxOrders", maxOrders);
+        return f.toString();
+    }
+
+    private static final class Form {
+        private final StringBuilder sb = new StringBuilder();
+
+        void add(String name, Object value) {
+            if (sb.length() > 0) sb.append('&');
+            sb.append(URLEncoder.encode(name, StandardCharsets.UTF_8))
+                    .append('=')
+                    .append(URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.jiwoo.noaats.load;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GC 정지 시간 기록 (GC 알림으로 받은 수집 1회마다의 시간).
+ * 앱과 부하 생성기가 한 JVM이므로 둘의 GC를 함께 센다 (정지는 어느 쪽이든 응답 지연에 그대로 보인다).
+ * ZGC/Shenandoah의 "Cycles" 수집기는 동시 수집 시간이라 정지가 아니므로 뺀다.
+ */
+final class GcPauses implements NotificationListener {
+
+    private final List<String> collectors = new ArrayList<>();
+    private long count;
+    private long totalMillis;
+    private long maxMillis;
+
+    GcPauses() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectors.add(gc.getName());
+            if (gc instanceof NotificationEmitter emitter) emitter.addNotificationListener(this, null, null);
+        }
+    }
+
+    List<String> collectors() {
+        return collectors;
+    }
+
+    @Override
+    public synchronized void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        if (info.getGcName().endsWith("Cycles")) return;
+        long millis = info.getGcInfo().getDuration();
+        count++;
+        totalMillis += millis;
+        maxMillis = Math.max(maxMillis, millis);
+    }
+
+    // 지금까지의 정지를 구간 결과에 옮기고 0부터 다시 센다
+    synchronized Phase drainInto(Phase phase) {
+        Phase withGc = phase.toBuilder()
+                .gcCount(count)
+                .gcPauseTotalMs(totalMillis)
+                .gcPauseMaxMs(maxMillis)
+                .build();
+        count = 0;
+        totalMillis = 0;
+        maxMillis = 0;
+        return withGc;
+    }
+}
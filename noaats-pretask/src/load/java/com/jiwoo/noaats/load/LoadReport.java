@@ -0,0 +1,126 @@
+package com.jiwoo.noaats.load;
+
+import lombok.Builder;
+import lombok.Data;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 부하 테스트 보고서 (load-report.json + load-report.html).
+ * JSON은 커밋 간 비교용 원본이고, baseline(이전 JSON)을 주면 HTML에 도착률별 처리량/p99 변화를 함께 표시한다.
+ */
+@Data
+@Builder
+public class LoadReport {
+    private String label;          // 비교 기준 이름 (기본: git describe)
+    private String createdAt;
+    private String jvm;
+    private int processors;
+    private long maxHeapMb;
+    private List<String> collectors;
+    private List<String> appArgs;  // 앱에 넘긴 설정 (--discount.* 등)
+
+    private String mix;            // 라인 수:비율
+    private double averageLines;
+    private int maxCoupons;
+    private int maxOrders;
+    private int carts;             // 돌려 쓰는 장바구니 수
+    private long warmupSeconds;
+    private long durationSeconds;  // 도착률 구간별 측정 시간
+
+    private List<Phase> phases;
+
+    void write(Path dir, JsonMapper jsonMapper, JsonNode baseline) throws IOException {
+        Files.createDirectories(dir);
+        jsonMapper.writerWithDefaultPrettyPrinter().writeValue(dir.resolve("load-report.json").toFile(), this);
+        Files.writeString(dir.resolve("load-report.html"), html(baseline));
+    }
+
+    private String html(JsonNode baseline) {
+        // 기준 보고서의 도착률별 구간
+        Map<Integer, JsonNode> before = new HashMap<>();
+        if (baseline != null) {
+            for (JsonNode p : baseline.path("phases")) before.put(p.path("rate").asInt(), p);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html>\n<html lang=\"ko\">\n<head>\n<meta charset=\"UTF-8\">\n")
+                .append("<title>부하 테스트 - ").append(escape(label)).append("</title>\n")
+                .append("<style>body{font-family:sans-serif;margin:24px}table{border-collapse:collapse;margin:12px 0}")
+                .append("th,td{border:1px solid #ccc;padding:4px 8px;text-align:right}th{background:#f4f4f4}")
+                .append("td.l{text-align:left}.worse{color:#c00}.better{color:#080}</style>\n</head>\n<body>\n");
+        sb.append("<h2>/calculate 부하 테스트: ").append(escape(label)).append("</h2>\n");
+
+        sb.append("<table>\n");
+        row(sb, "측정 시각", createdAt);
+        row(sb, "Java / CPU / 최대 힙", jvm + " / " + processors + " / " + maxHeapMb + "MB");
+        row(sb, "GC", String.join(", ", collectors));
+        row(sb, "앱 설정", appArgs.isEmpty() ? "(기본값)" : String.join(" ", appArgs));
+        row(sb, "장바구니", String.format("라인 %s (평균 %.1f줄), 쿠폰 0~%d장, 최대 %d주문, %d개 반복",
+                mix, averageLines, maxCoupons, maxOrders, carts));
+        row(sb, "구간", String.format("예열 %d초 후 도착률마다 %d초", warmupSeconds, durationSeconds));
+        if (baseline != null) row(sb, "비교 기준", baseline.path("label").asText() + " (" + baseline.path("createdAt").asText() + ")");
+        sb.append("</table>\n");
+
+        sb.append("<table>\n<tr><th>도착률(/s)</th><th>보냄</th><th>성공</th><th>거절</th><th>오류</th><th>처리량(/s)</th>")
+                .append("<th>p50(ms)</th><th>p99(ms)</th><th>p99.9(ms)</th><th>최대(ms)</th><th>송신 지연(ms)</th>")
+                .append("<th>GC 횟수</th><th>GC 정지 합(ms)</th><th>GC 최대(ms)</th>");
+        if (baseline != null) sb.append("<th>기준 처리량</th><th>기준 p99(ms)</th><th>p99 변화</th>");
+        sb.append("</tr>\n");
+        for (Phase p : phases) {
+            sb.append("<tr>");
+            cell(sb, String.valueOf(p.getRate()));
+            cell(sb, String.valueOf(p.getSent()));
+            cell(sb, String.valueOf(p.getOk()));
+            cell(sb, String.valueOf(p.getRejected()));
+            cell(sb, String.valueOf(p.getErrors()));
+            cell(sb, String.format("%.1f", p.getThroughput()));
+            cell(sb, String.format("%.2f", p.getP50Ms()));
+            cell(sb, String.format("%.2f", p.getP99Ms()));
+            cell(sb, String.format("%.2f", p.getP999Ms()));
+            cell(sb, String.format("%.2f", p.getMaxMs()));
+            cell(sb, String.format("%.2f", p.getMaxSendLagMs()));
+            cell(sb, String.valueOf(p.getGcCount()));
+            cell(sb, String.valueOf(p.getGcPauseTotalMs()));
+            cell(sb, String.valueOf(p.getGcPauseMaxMs()));
+            if (baseline != null) {
+                JsonNode b = before.get(p.getRate());
+                if (b == null) {
+                    sb.append("<td>-</td><td>-</td><td>-</td>");
+                } else {
+                    double p99 = b.path("p99Ms").asDouble();
+                    double change = p99 == 0 ? 0 : (p.getP99Ms() - p99) * 100 / p99;
+                    cell(sb, String.format("%.1f", b.path("throughput").asDouble()));
+                    cell(sb, String.format("%.2f", p99));
+                    sb.append("<td class=\"").append(change > 0 ? "worse" : "better").append("\">")
+                            .append(String.format("%+.1f%%", change)).append("</td>");
+                }
+            }
+            sb.append("</tr>\n");
+        }
+        sb.append("</table>\n");
+        sb.append("<p>지연은 성공 응답만, 보내기로 한 시각부터 잰 값(대기 포함). 송신 지연이 크면 부하 생성기가 도착률을 지키지 못한 것입니다.</p>\n");
+        sb.append("</body>\n</html>\n");
+        return sb.toString();
+    }
+
+    private static void row(StringBuilder sb, String name, String value) {
+        sb.append("<tr><th>").append(escape(name)).append("</th><td class=\"l\">").append(escape(value)).append("</td></tr>\n");
+    }
+
+    private static void cell(StringBuilder sb, String value) {
+        sb.append("<td>").append(value).append("</td>");
+    }
+
+    private static String escape(String s) {
+        if (s == null) return "";
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,160 @@
+package com.jiwoo.noaats.load;
+
+import com.jiwoo.noaats.NoaatsPretaskApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * /calculate 부하 테스트: 앱을 같은 JVM에 임의 포트로 띄우고(외부 서비스 없음)
+ * 합성 장바구니를 고정 도착률로 보내 처리량, p50/p99/p99.9 지연, GC 정지를 보고한다.
+ * 컨트롤러 + 계산 서비스 + Thymeleaf 렌더링까지 화면 요청 그대로 지난다.
+ *
+ * 실행: mvn -Pload test-compile exec:exec
+ * 설정: mvn -Pload test-compile exec:exec -Dload.args="rates=100,400 duration=20 mix=1:50,5:50 baseline=old.json"
+ * "--"로 시작하는 인자는 앱 설정으로 넘긴다 (예: --discount.cache.enabled=false).
+ */
+public final class LoadTest {
+
+    // 인자 이름 → 기본값
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("rates", "50,100,200,400");   // 도착률 구간(요청/초), 낮은 것부터
+        DEFAULTS.put("duration", "30");            // 구간별 측정 초
+        DEFAULTS.put("warmup", "10");              // 첫 도착률로 예열하는 초 (기록 안 함)
+        DEFAULTS.put("mix", "1:30,2:25,3:20,4:15,5:10");
+        DEFAULTS.put("coupons", "3");              // 장바구니당 쿠폰 0~N장
+        DEFAULTS.put("maxOrders", "2");
+        DEFAULTS.put("carts", "2000");             // 돌려 쓰는 장바구니 수
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("timeout", "10");             // 요청 시간 제한(초), 넘기면 오류
+        DEFAULTS.put("threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        DEFAULTS.put("out", "target/load");
+        DEFAULTS.put("label", "");                 // 미입력이면 git describe
+        DEFAULTS.put("baseline", "");              // 비교할 이전 load-report.json
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        List<String> appArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                appArgs.add(arg);
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !DEFAULTS.containsKey(arg.substring(0, eq))) {
+                throw new IllegalArgumentException("알 수 없는 인자: " + arg + " (사용 가능: " + DEFAULTS.keySet() + ")");
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        CartMix mix = CartMix.parse(options.get("mix"));
+        int maxCoupons = Integer.parseInt(options.get("coupons"));
+        int maxOrders = Integer.parseInt(options.get("maxOrders"));
+        String[] bodies = mix.bodies(Integer.parseInt(options.get("carts")), maxCoupons, maxOrders,
+                Long.parseLong(options.get("seed")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.get("warmup")));
+        List<Integer> rates = new ArrayList<>();
+        for (String r : options.get("rates").split(",")) rates.add(Integer.parseInt(r.trim()));
+
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        JsonNode baseline = options.get("baseline").isEmpty() ? null
+                : jsonMapper.readTree(Path.of(options.get("baseline")).toFile());
+
+        // 재시작 클래스로더(devtools)는 끄고, 앱 로그는 줄인다
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> bootArgs = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN"));
+        bootArgs.addAll(appArgs);
+
+        GcPauses gc = new GcPauses();
+        ExecutorService clientPool = Executors.newFixedThreadPool(Integer.parseInt(options.get("threads")), r -> {
+            Thread t = new Thread(r, "load-client");
+            t.setDaemon(true);
+            return t;
+        });
+        try (ConfigurableApplicationContext app = SpringApplication.run(NoaatsPretaskApplication.class,
+                bootArgs.toArray(new String[0]))) {
+            URI uri = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/calculate");
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(clientPool)
+                    .build();
+            OpenLoad load = new OpenLoad(client, uri, bodies, Duration.ofSeconds(Long.parseLong(options.get("timeout"))));
+
+            if (!warmup.isZero()) {
+                System.out.printf("예열: %d/s, %d초%n", rates.get(0), warmup.toSeconds());
+                load.run(rates.get(0), warmup);
+            }
+            gc.drainInto(Phase.builder().build());
+
+            List<Phase> phases = new ArrayList<>();
+            for (int rate : rates) {
+                Phase phase = gc.drainInto(load.run(rate, duration));
+                phases.add(phase);
+                System.out.printf("%,d/s: 처리량 %.1f/s, p50 %.2fms, p99 %.2fms, p99.9 %.2fms, 거절 %d, 오류 %d, GC %d회 %dms%n",
+                        rate, phase.getThroughput(), phase.getP50Ms(), phase.getP99Ms(), phase.getP999Ms(),
+                        phase.getRejected(), phase.getErrors(), phase.getGcCount(), phase.getGcPauseTotalMs());
+            }
+
+            LoadReport report = LoadReport.builder()
+                    .label(options.get("label").isEmpty() ? gitDescribe() : options.get("label"))
+                    .createdAt(Instant.now().toString())
+                    .jvm(System.getProperty("java.vm.name") + " " + System.getProperty("java.version"))
+                    .processors(Runtime.getRuntime().availableProcessors())
+                    .maxHeapMb(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax() >> 20)
+                    .collectors(gc.collectors())
+                    .appArgs(appArgs)
+                    .mix(mix.toString())
+                    .averageLines(mix.averageLines())
+                    .maxCoupons(maxCoupons)
+                    .maxOrders(maxOrders)
+                    .carts(bodies.length)
+                    .warmupSeconds(warmup.toSeconds())
+                    .durationSeconds(duration.toSeconds())
+                    .phases(phases)
+                    .build();
+            Path out = Path.of(options.get("out"));
+            report.write(out, jsonMapper, baseline);
+            System.out.println("보고서: " + out.resolve("load-report.html").toAbsolutePath());
+        } finally {
+            clientPool.shutdownNow();
+        }
+    }
+
+    // 보고서 이름: 커밋 (작업 중 변경이 있으면 -dirty). git이 없으면 local
+    private static String gitDescribe() {
+        try {
+            Process git = new ProcessBuilder("git", "describe", "--always", "--dirty").redirectErrorStream(true).start();
+            String out = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return git.waitFor() == 0 && !out.isEmpty() ? out : "local";
+        } catch (IOException e) {
+            return "local";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "local";
+        }
+    }
+}
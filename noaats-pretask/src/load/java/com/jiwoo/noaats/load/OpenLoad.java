@@ -0,0 +1,124 @@
+package com.jiwoo.noaats.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 고정 도착률(open model) 부하: i번째 요청은 시작 + i / rate 시각에 보낸다.
+ * 응답을 기다리지 않고 보내므로 서버가 느려져도 도착률이 줄지 않고,
+ * 지연은 "보내기로 한 시각"부터 재므로 밀린 대기 시간도 지연에 들어간다(coordinated omission 보정).
+ */
+final class OpenLoad {
+
+    // 화면이 결과를 그렸는지 / 계산 풀이 가득 차 거절했는지 (둘 다 200)
+    private static final String RESULT_MARKER = "result-summary";
+    private static final String REJECTED_MARKER = "요청이 많아";
+
+    private final HttpClient client;
+    private final URI uri;
+    private final String[] bodies;
+    private final Duration timeout;
+    private int next; // 다음 본문 위치 (구간이 바뀌어도 이어서)
+
+    OpenLoad(HttpClient client, URI uri, String[] bodies, Duration timeout) {
+        this.client = client;
+        this.uri = uri;
+        this.bodies = bodies;
+        this.timeout = timeout;
+    }
+
+    Phase run(int rate, Duration duration) throws InterruptedException {
+        int total = (int) Math.max(1, Math.min(Integer.MAX_VALUE, rate * duration.toNanos() / 1_000_000_000L));
+        Samples samples = new Samples(total);
+        CountDownLatch done = new CountDownLatch(total);
+        long maxSendLag = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long due = start + (long) (i * 1_000_000_000.0 / rate);
+            for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                LockSupport.parkNanos(wait);
+            }
+            // 보내는 쪽이 밀리면 도착률이 지켜지지 않은 것이므로 함께 보고한다
+            maxSendLag = Math.max(maxSendLag, System.nanoTime() - due);
+
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(bodies[next++ % bodies.length]))
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, failure) -> {
+                long elapsed = System.nanoTime() - due;
+                // 그 밖의 응답(200이 아님, 실패)은 오류: 보낸 수에서 성공/거절을 빼서 센다
+                if (failure == null && response.statusCode() == 200 && response.body().contains(RESULT_MARKER)) {
+                    samples.ok(elapsed);
+                } else if (failure == null && response.statusCode() == 200 && response.body().contains(REJECTED_MARKER)) {
+                    samples.rejected();
+                }
+                done.countDown();
+            });
+        }
+        done.await(timeout.toMillis() + 1000, TimeUnit.MILLISECONDS);
+        long elapsed = System.nanoTime() - start;
+        // 기다리지 못한 응답은 이후에 와도 기록하지 않는다 (복사/정렬 중 배열이 바뀌지 않도록)
+        samples.close();
+
+        int n = samples.ok;
+        long[] sorted = Arrays.copyOf(samples.latency, n);
+        Arrays.sort(sorted);
+        return Phase.builder()
+                .rate(rate)
+                .sent(total)
+                .ok(n)
+                .rejected(samples.rejected)
+                .errors(total - n - samples.rejected) // 200이 아니거나 시간 안에 끝나지 않은 요청
+                .throughput(n * 1e9 / elapsed)
+                .p50Ms(millis(percentile(sorted, 0.50)))
+                .p99Ms(millis(percentile(sorted, 0.99)))
+                .p999Ms(millis(percentile(sorted, 0.999)))
+                .maxMs(millis(n == 0 ? 0 : sorted[n - 1]))
+                .maxSendLagMs(millis(maxSendLag))
+                .build();
+    }
+
+    // 구간 1개의 응답 기록. close 후에 끝난 응답은 버린다
+    private static final class Samples {
+        final long[] latency; // 성공 응답 지연 (앞에서부터 ok개)
+        int ok;
+        int rejected;
+        private boolean closed;
+
+        Samples(int total) {
+            this.latency = new long[total];
+        }
+
+        synchronized void ok(long nanos) {
+            if (!closed) latency[ok++] = nanos;
+        }
+
+        synchronized void rejected() {
+            if (!closed) rejected++;
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+    }
+
+    // 가장 가까운 순위(nearest-rank) 백분위수
+    private static long percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.max(0, (int) Math.ceil(q * sorted.length) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.jiwoo.noaats.load;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 도착률 구간 1개의 측정 결과. 지연은 성공 응답만, 보내기로 한 시각부터 응답 완료까지.
+ */
+@Data
+@Builder(toBuilder = true)
+public class Phase {
+    private int rate;            // 목표 도착률(요청/초)
+    private int sent;            // 보낸 요청 수
+    private int ok;              // 결과 화면을 받은 수
+    private int rejected;        // 계산 풀이 가득 차 거절된 수 (discount.compute.enabled)
+    private int errors;          // 200이 아니거나 시간 초과
+    private double throughput;   // 성공 응답/초
+
+    private double p50Ms;
+    private double p99Ms;
+    private double p999Ms;
+    private double maxMs;
+    private double maxSendLagMs; // 보내는 쪽이 예정 시각보다 늦은 최대 시간 (크면 부하 생성기 포화)
+
+    private long gcCount;        // 구간 중 GC 정지 횟수/합계/최대
+    private long gcPauseTotalMs;
+    private long gcPauseMaxMs;
+}
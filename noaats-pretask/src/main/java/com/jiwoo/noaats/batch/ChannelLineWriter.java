@@ -0,0 +1,52 @@
+package com.jiwoo.noaats.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 줄 단위 출력. 고정 크기 direct 버퍼에 모았다가 가득 차면 FileChannel에 한 번에 쓴다.
+ * 한 스레드에서만 사용한다.
+ */
+final class ChannelLineWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    ChannelLineWriter(Path path, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void writeLine(String line) throws IOException {
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > buffer.remaining()) flush();
+        if (bytes.length > buffer.capacity()) {
+            // 버퍼보다 긴 줄은 바로 쓴다
+            ByteBuffer direct = ByteBuffer.wrap(bytes);
+            while (direct.hasRemaining()) channel.write(direct);
+            return;
+        }
+        buffer.put(bytes);
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.jiwoo.noaats.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 파일을 일정 크기 구간씩 메모리 매핑해서 한 줄씩 읽는다.
+ * 힙에는 현재 줄만 올라오므로 파일 크기와 무관하게 메모리 사용량이 일정하다.
+ * 구간 끝에 걸친 줄은 그 줄 시작 위치부터 다시 매핑한다 (한 줄은 구간 크기 이하여야 함).
+ */
+final class MappedLineReader implements Closeable {
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position; // 다음에 읽을 위치 (파일 기준)
+
+    MappedLineReader(Path path, int windowSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+    }
+
+    long size() {
+        return size;
+    }
+
+    long position() {
+        return position;
+    }
+
+    // 다음 줄 (줄 끝 \n, \r\n 제외). 파일 끝이면 null
+    String nextLine() throws IOException {
+        while (position < size) {
+            if (window == null || position >= windowStart + window.limit()) map(position);
+
+            int from = (int) (position - windowStart);
+            int limit = window.limit();
+            int end = from;
+            while (end < limit && window.get(end) != '\n') end++;
+
+            if (end == limit && windowStart + limit < size) {
+                // 구간 끝에 걸린 줄: 줄 시작부터 다시 매핑
+                if (from == 0) {
+                    throw new IOException("한 줄이 매핑 구간(" + windowSize + " bytes)보다 깁니다: offset " + position);
+                }
+                map(position);
+                continue;
+            }
+
+            boolean newline = end < limit;
+            position += (end - from) + (newline ? 1 : 0);
+
+            int length = end - from;
+            if (length > 0 && window.get(from + length - 1) == '\r') length--;
+            byte[] bytes = new byte[length];
+            window.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    private void map(long start) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+        windowStart = start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
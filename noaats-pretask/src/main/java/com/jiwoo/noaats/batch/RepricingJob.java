@@ -0,0 +1,212 @@
+package com.jiwoo.noaats.batch;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.DiscountResult;
+import com.jiwoo.noaats.domain.OrderPlan;
+import com.jiwoo.noaats.form.DiscountForm;
+import com.jiwoo.noaats.service.CouponCatalog;
+import com.jiwoo.noaats.service.DiscountCalculatorService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 장바구니 파일 일괄 재계산.
+ * 입력: 한 줄에 DiscountForm JSON 1건 (JSONL, 빈 줄 무시)
+ * 출력: 입력 줄마다 탭 구분 1줄, 입력 순서 유지
+ *   정상: 줄번호, finalPay, basePay, totalSaved, orderCount, optimal(1/0), 주문 구성
+ *         주문 구성은 "상품위치,상품위치:쿠폰위치"를 |로 연결 (쿠폰 미사용은 -)
+ *         수량 단위 분할이면 상품위치 뒤에 "x수량"
+ *   오류: 줄번호, ERR, 메시지
+ *
+ * 읽기/쓰기는 호출 스레드 하나가 하고 계산만 작업 풀에서 한다.
+ * 결과를 기다리는 작업은 최대 queueCapacity건이라 파일이 커도 메모리 사용량은 일정하다.
+ */
+@Slf4j
+@Component
+public class RepricingJob {
+
+    private final DiscountCalculatorService calculatorService;
+    private final CouponCatalog catalog;
+    private final DiscountProperties properties;
+    private final JsonMapper jsonMapper;
+
+    private final Counter ok;
+    private final Counter errors;
+    // 진행 중인 작업의 읽은 바이트 / 파일 크기 (게이지용)
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong bytesTotal = new AtomicLong();
+
+    public RepricingJob(DiscountCalculatorService calculatorService, CouponCatalog catalog, DiscountProperties properties,
+                        JsonMapper jsonMapper, MeterRegistry registry) {
+        this.calculatorService = calculatorService;
+        this.catalog = catalog;
+        this.properties = properties;
+        this.jsonMapper = jsonMapper;
+        this.ok = Counter.builder("discount.reprice.carts")
+                .description("일괄 재계산한 장바구니 수")
+                .tag("outcome", "ok")
+                .register(registry);
+        this.errors = Counter.builder("discount.reprice.carts")
+                .description("일괄 재계산한 장바구니 수")
+                .tag("outcome", "error")
+                .register(registry);
+        Gauge.builder("discount.reprice.progress", this,
+                        job -> job.bytesTotal.get() == 0 ? 0 : (double) job.bytesRead.get() / job.bytesTotal.get())
+                .description("일괄 재계산 진행률 (읽은 바이트 / 파일 크기)")
+                .register(registry);
+    }
+
+    /**
+     * @param coupons null이 아니면 모든 장바구니의 보유 쿠폰을 이 목록으로 바꿔 계산
+     */
+    public Summary run(Path input, Path output, List<Coupon> coupons) throws IOException, InterruptedException {
+        DiscountProperties.Reprice config = properties.getReprice();
+        int threads = config.getThreads() > 0 ? config.getThreads() : Runtime.getRuntime().availableProcessors();
+        int capacity = Math.max(1, config.getQueueCapacity());
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity), r -> {
+                    Thread t = new Thread(r, "reprice-" + threadIndex.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        long start = System.nanoTime();
+        long carts = 0, failed = 0, nextProgress = config.getProgressEvery();
+        try (MappedLineReader reader = new MappedLineReader(input, config.getWindowSize());
+             ChannelLineWriter writer = new ChannelLineWriter(output, config.getWriteBufferSize())) {
+
+            bytesRead.set(0);
+            bytesTotal.set(reader.size());
+            ArrayDeque<Future<String>> pending = new ArrayDeque<>(capacity);
+            String line;
+            long lineNo = 0;
+            while ((line = reader.nextLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+
+                // 결과 대기 작업이 가득 차면 가장 오래된 것부터 써서 자리를 만든다 (풀 큐도 넘치지 않음)
+                if (pending.size() == capacity) failed += write(writer, pending.poll());
+
+                String json = line;
+                long no = lineNo;
+                pending.add(workers.submit(() -> price(no, json, coupons)));
+                carts++;
+                bytesRead.set(reader.position());
+
+                if (config.getProgressEvery() > 0 && carts >= nextProgress) {
+                    nextProgress += config.getProgressEvery();
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    log.info("재계산 진행: {}건 ({}%), {}건/초", carts,
+                            String.format("%.1f", 100.0 * reader.position() / Math.max(1, reader.size())),
+                            String.format("%.0f", carts / Math.max(seconds, 1e-9)));
+                }
+            }
+            while (!pending.isEmpty()) failed += write(writer, pending.poll());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        long elapsed = System.nanoTime() - start;
+        return Summary.builder()
+                .carts(carts)
+                .errors(failed)
+                .bytes(bytesTotal.get())
+                .elapsedNanos(elapsed)
+                .build();
+    }
+
+    // 결과 1줄 쓰기. 오류 줄이면 1
+    private int write(ChannelLineWriter writer, Future<String> result) throws IOException, InterruptedException {
+        String text;
+        try {
+            text = result.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("재계산 작업 실패", e.getCause());
+        }
+        writer.writeLine(text);
+        return text.startsWith("ERR", text.indexOf('\t') + 1) ? 1 : 0;
+    }
+
+    // 작업 스레드: 한 줄 계산. 입력 오류는 해당 줄에만 표시하고 계속 진행
+    private String price(long lineNo, String json, List<Coupon> coupons) {
+        try {
+            DiscountForm form = jsonMapper.readValue(json, DiscountForm.class);
+            if (coupons != null) form.setCoupons(new ArrayList<>(coupons));
+            // couponIds는 서버 쿠폰 카탈로그에서 (교체한 쿠폰 뒤에 붙음)
+            catalog.attach(form);
+            if (!form.hasActiveProduct()) {
+                errors.increment();
+                return lineNo + "\tERR\t상품이 없습니다.";
+            }
+            String text = format(lineNo, calculatorService.calculateWithoutCache(form));
+            ok.increment();
+            return text;
+        } catch (RuntimeException e) {
+            errors.increment();
+            String message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            return lineNo + "\tERR\t" + message.replaceAll("[\\t\\r\\n]+", " ");
+        }
+    }
+
+    private static String format(long lineNo, DiscountResult result) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(lineNo)
+                .append('\t').append(result.getFinalPay())
+                .append('\t').append(result.getBasePay())
+                .append('\t').append(result.getTotalSaved())
+                .append('\t').append(result.getOrderCount())
+                .append('\t').append(result.isOptimal() ? 1 : 0)
+                .append('\t');
+        List<OrderPlan> orders = result.getOrders();
+        for (int i = 0; i < orders.size(); i++) {
+            OrderPlan order = orders.get(i);
+            if (i > 0) sb.append('|');
+            int[] items = order.getItemIndices();
+            int[] quantities = order.getQuantities();
+            for (int j = 0; j < items.length; j++) {
+                if (j > 0) sb.append(',');
+                sb.append(items[j]);
+                if (quantities != null) sb.append('x').append(quantities[j]);
+            }
+            sb.append(':');
+            if (order.getCouponIndex() < 0) sb.append('-');
+            else sb.append(order.getCouponIndex());
+        }
+        return sb.toString();
+    }
+
+    @Data
+    @Builder
+    public static class Summary {
+        private long carts;       // 계산한 장바구니 수 (빈 줄 제외)
+        private long errors;      // 그중 오류 줄 수
+        private long bytes;       // 입력 파일 크기
+        private long elapsedNanos;
+
+        public double cartsPerSecond() {
+            return elapsedNanos == 0 ? 0 : carts * 1e9 / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.jiwoo.noaats.batch;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.Coupon;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * discount.reprice.input을 지정하고 실행하면 기동 직후 장바구니 파일을 일괄 재계산한다.
+ * 예) java -jar app.jar --spring.main.web-application-type=none \
+ *       --discount.reprice.input=carts.jsonl --discount.reprice.coupons=new-coupons.json
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "discount.reprice", name = "input")
+@RequiredArgsConstructor
+public class RepricingRunner implements CommandLineRunner {
+
+    private final RepricingJob job;
+    private final DiscountProperties properties;
+    private final JsonMapper jsonMapper;
+
+    @Override
+    public void run(String... args) throws Exception {
+        DiscountProperties.Reprice config = properties.getReprice();
+        Path input = Path.of(config.getInput());
+        Path output = config.getOutput() != null ? Path.of(config.getOutput()) : Path.of(config.getInput() + ".priced.tsv");
+
+        // 새 쿠폰 목록(JSON 배열)이 있으면 모든 장바구니에 적용
+        List<Coupon> coupons = config.getCoupons() == null ? null
+                : List.of(jsonMapper.readValue(Path.of(config.getCoupons()).toFile(), Coupon[].class));
+
+        log.info("재계산 시작: {} → {}{}", input, output, coupons == null ? "" : " (쿠폰 " + coupons.size() + "장으로 교체)");
+        RepricingJob.Summary summary = job.run(input, output, coupons);
+        log.info("재계산 완료: {}건 (오류 {}건), {}초, {}건/초", summary.getCarts(), summary.getErrors(),
+                String.format("%.1f", summary.getElapsedNanos() / 1e9), String.format("%.0f", summary.cartsPerSecond()));
+    }
+}
@@ -0,0 +1,28 @@
+package com.jiwoo.noaats.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ComputeExecutorConfig {
+
+    // 시간 제한 계산 전용 풀: 크기와 대기열이 고정이라 큰 장바구니가 몰려도 CPU를 넘게 쓰지 않는다
+    @Bean(destroyMethod = "shutdownNow")
+    public ThreadPoolExecutor discountComputePool(DiscountProperties properties) {
+        DiscountProperties.Compute compute = properties.getCompute();
+        int threads = compute.getThreads() > 0 ? compute.getThreads() : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger index = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, compute.getQueueCapacity())), r -> {
+                    Thread t = new Thread(r, "discount-compute-" + index.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+}
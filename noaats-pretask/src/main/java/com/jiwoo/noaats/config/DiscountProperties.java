@@ -0,0 +1,144 @@
+package com.jiwoo.noaats.config;
+
+import com.jiwoo.noaats.service.SplitEngine;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "discount")
+public class DiscountProperties {
+
+    // 입력 상한 (분할 결과를 long mask로 표현하므로 상품은 최대 64)
+    private int maxProducts = 60;
+    private int maxCoupons = 16;
+
+    private Split split = new Split();
+
+    private Cache cache = new Cache();
+
+    private Api api = new Api();
+
+    private Compute compute = new Compute();
+
+    private Reprice reprice = new Reprice();
+
+    private Session session = new Session();
+
+    private Catalog catalog = new Catalog();
+
+    @Data
+    public static class Split {
+        private SplitEngine engine = SplitEngine.AUTO;
+
+        // AUTO에서 완전 탐색을 쓰는 상품 수 상한
+        private int exhaustiveMaxProducts = 12;
+
+        // 정확 탐색 부분합 표 크기 상한(금액 단위 개수). 넘으면 근사 탐색 + 최적해와의 차이(gap) 보고
+        private int exactSumLimit = 1 << 23;
+
+        // 근사 탐색 부분합 표 크기
+        private int approxSumLimit = 1 << 16;
+
+        // 폼에서 고를 수 있는 최대 주문 수
+        private int maxOrders = 4;
+
+        // 3주문 이상 분할(부분집합 DP, 3^N)을 탐색하는 상품 수 상한
+        private int partitionMaxProducts = 12;
+
+        // 완전 탐색 mask 구간을 전용 ForkJoinPool에서 병렬 평가 (결과는 순차 탐색과 동일)
+        private boolean parallel = false;
+
+        // 병렬 평가 풀 크기. 0 이하면 CPU 코어 수
+        private int parallelism = 0;
+
+        // 병렬 평가로 바꾸는 상품 수 하한
+        private int parallelMinProducts = 12;
+
+        // 요청 1건의 계산 시간 예산. 넘기면 그때까지의 최선 분할을 best-effort로 반환. 0이면 제한 없음
+        private Duration timeBudget = Duration.ZERO;
+
+        // 2주문 분할에서 라인 수량을 두 주문에 나눠 담는 분할도 탐색 (요청 splitQuantities가 우선)
+        private boolean splitQuantities = false;
+
+        // 추천 외 대안 전략 수(0~10)와 추천이 쓴 쿠폰별 "그 쿠폰 없이" 최적 (요청 alternatives가 우선).
+        // 켜면 대안 후보를 남기느라 분할 탐색이 덜 건너뛴다
+        private int alternatives = 0;
+    }
+
+    // 같은 장바구니(입력 순서 무관) 결과 캐시
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    // 장바구니 편집 세션 (이전 계산 상태를 두고 바뀐 상품/쿠폰만 반영)
+    @Data
+    public static class Session {
+        private long maximumSize = 10_000;
+        // 마지막 요청 후 이 시간 동안 쓰지 않으면 삭제
+        private Duration idleTimeout = Duration.ofMinutes(30);
+    }
+
+    // 서버 쿠폰 카탈로그 (요청은 tenant + couponIds로 참조)
+    @Data
+    public static class Catalog {
+        // 카탈로그 JSON 파일 ({"tenant": [쿠폰, ...]}). 없으면 카탈로그 사용 안 함
+        private String path;
+        // 파일 변경 확인 간격. 바뀌었으면 새 스냅숏으로 교체 (0이면 기동 시 한 번만 읽음)
+        private Duration reloadInterval = Duration.ofSeconds(30);
+    }
+
+    // JSON API
+    @Data
+    public static class Api {
+        // 일괄 계산 1회 요청의 최대 장바구니 수
+        private int maxBatchSize = 1000;
+    }
+
+    // 화면/JSON 계산 요청의 시간 제한 (opt-in)
+    @Data
+    public static class Compute {
+        // true면 큰 장바구니는 계산 풀에서 시간 제한을 두고 계산
+        private boolean enabled = false;
+
+        // 이 상품 수 이하 장바구니는 요청 스레드에서 바로 계산 (계산 풀이 밀려도 빠르게)
+        private int inlineMaxProducts = 8;
+
+        // 계산 풀 크기(0 이하면 CPU 코어 수) / 대기열 크기 (가득 차면 거절)
+        private int threads = 0;
+        private int queueCapacity = 64;
+
+        // 요청당 시간 제한(대기 포함). 넘으면 그때까지 찾은 최선 결과를 반환하고 풀 계산도 이때 멈춘다
+        private Duration timeout = Duration.ofSeconds(2);
+    }
+
+    // 장바구니 파일 일괄 재계산 (input을 지정하면 기동 시 실행)
+    @Data
+    public static class Reprice {
+        // 입력 JSONL (한 줄에 DiscountForm 1건)
+        private String input;
+
+        // 출력 TSV. 없으면 input + ".priced.tsv"
+        private String output;
+
+        // 모든 장바구니에 적용할 쿠폰 목록 JSON 배열 파일 (선택)
+        private String coupons;
+
+        // 계산 스레드 수. 0 이하면 CPU 코어 수
+        private int threads = 0;
+
+        // 결과를 기다리는 최대 작업 수 (메모리 상한)
+        private int queueCapacity = 1024;
+
+        // 입력 매핑 구간 / 출력 버퍼 크기(bytes). 한 줄은 매핑 구간 이하여야 함
+        private int windowSize = 64 << 20;
+        private int writeBufferSize = 1 << 20;
+
+        // 진행 로그 간격(장바구니 수). 0이면 끄기
+        private long progressEvery = 100_000;
+    }
+}
@@ -0,0 +1,24 @@
+package com.jiwoo.noaats.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+@Configuration
+public class SplitExecutorConfig {
+
+    // 분할 탐색 전용 풀 (요청 스레드/공용 풀과 분리)
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool splitSearchPool(DiscountProperties properties) {
+        int parallelism = properties.getSplit().getParallelism();
+        if (parallelism <= 0) parallelism = Runtime.getRuntime().availableProcessors();
+
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("split-search-" + t.getPoolIndex());
+            return t;
+        }, null, false);
+    }
+}
@@ -0,0 +1,168 @@
+package com.jiwoo.noaats.controller;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.BatchItemResult;
+import com.jiwoo.noaats.domain.CatalogStatus;
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.DiscountResult;
+import com.jiwoo.noaats.domain.SessionResult;
+import com.jiwoo.noaats.form.CartEdit;
+import com.jiwoo.noaats.form.DiscountForm;
+import com.jiwoo.noaats.service.CartSessionService;
+import com.jiwoo.noaats.service.CouponCatalog;
+import com.jiwoo.noaats.service.DiscountCalculatorService;
+import com.jiwoo.noaats.service.DiscountRequestExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 서비스 간 호출용 JSON API.
+ * 화면(index.html) 없이 DiscountResult만 돌려주고, 전략별 상세(singleOrder/twoOrders/manyOrders)는 요청할 때만 포함한다.
+ * 요청의 couponIds는 서버 쿠폰 카탈로그에서 찾아 coupons 뒤에 붙인 뒤 계산한다.
+ */
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class DiscountApiController {
+
+    private static final String NO_PRODUCT = "상품을 최소 1개 이상 입력해주세요.";
+
+    private final DiscountCalculatorService calculatorService;
+    private final DiscountRequestExecutor requestExecutor;
+    private final CartSessionService sessionService;
+    private final CouponCatalog catalog;
+    private final DiscountProperties properties;
+
+    @PostMapping("/calculate")
+    public DiscountResult calculate(@RequestBody DiscountForm form,
+                                    @RequestParam(defaultValue = "false") boolean detail) {
+        if (!form.hasActiveProduct()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, NO_PRODUCT);
+        }
+        attach(form);
+        try {
+            return view(requestExecutor.calculate(form), detail);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "요청이 많아 계산하지 못했습니다.");
+        }
+    }
+
+    // 장바구니 배열을 한 번에 계산. 입력 오류는 해당 항목에만 error로 표시
+    @PostMapping("/calculate/batch")
+    public List<BatchItemResult> calculateBatch(@RequestBody List<DiscountForm> forms,
+                                                @RequestParam(defaultValue = "false") boolean detail) {
+        if (forms.size() > properties.getApi().getMaxBatchSize()) {
+            throw new ResponseStatusException(HttpStatus.CONTENT_TOO_LARGE,
+                    "한 번에 최대 " + properties.getApi().getMaxBatchSize() + "건까지 계산할 수 있습니다.");
+        }
+
+        List<DiscountForm> valid = new ArrayList<>();
+        String[] errors = new String[forms.size()];
+        for (int i = 0; i < forms.size(); i++) {
+            DiscountForm form = forms.get(i);
+            if (form == null || !form.hasActiveProduct()) {
+                errors[i] = NO_PRODUCT;
+                continue;
+            }
+            try {
+                catalog.attach(form);
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+                continue;
+            }
+            valid.add(form);
+        }
+        List<DiscountResult> results = calculatorService.calculateAll(valid);
+
+        List<BatchItemResult> items = new ArrayList<>(forms.size());
+        int next = 0;
+        for (int i = 0; i < forms.size(); i++) {
+            if (errors[i] == null) {
+                items.add(BatchItemResult.builder().index(i).result(view(results.get(next++), detail)).build());
+            } else {
+                items.add(BatchItemResult.builder().index(i).error(errors[i]).build());
+            }
+        }
+        return items;
+    }
+
+    // 편집 세션 시작: 장바구니 전체를 계산하고 이후 변경에 쓸 token을 돌려준다
+    @PostMapping("/sessions")
+    public SessionResult openSession(@RequestBody DiscountForm form,
+                                     @RequestParam(defaultValue = "false") boolean detail) {
+        if (!form.hasActiveProduct()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, NO_PRODUCT);
+        }
+        attach(form);
+        return view(sessionService.open(form), detail);
+    }
+
+    // 상품 수량 / 상품·쿠폰 사용 여부 변경 1건을 반영해 다시 계산 (이전 계산 상태를 이어서 사용)
+    @PatchMapping("/sessions/{token}")
+    public SessionResult editSession(@PathVariable String token, @RequestBody CartEdit edit,
+                                     @RequestParam(defaultValue = "false") boolean detail) {
+        SessionResult result;
+        try {
+            result = sessionService.edit(token, edit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (result == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "편집 세션이 없거나 만료되었습니다.");
+        }
+        return view(result, detail);
+    }
+
+    @DeleteMapping("/sessions/{token}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void closeSession(@PathVariable String token) {
+        sessionService.close(token);
+    }
+
+    // 쿠폰 카탈로그: 지금 버전 / 파일 다시 읽기 / tenant 쿠폰 목록(최소 사용 금액 오름차순)
+    @GetMapping("/catalog")
+    public CatalogStatus catalogStatus() {
+        return catalog.status();
+    }
+
+    @PostMapping("/catalog/reload")
+    public CatalogStatus reloadCatalog() {
+        try {
+            return catalog.reload();
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_CONTENT, e.getMessage());
+        }
+    }
+
+    @GetMapping("/catalog/{tenant}/coupons")
+    public List<Coupon> catalogCoupons(@PathVariable String tenant) {
+        List<Coupon> coupons = catalog.coupons(tenant);
+        if (coupons == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "카탈로그에 없는 tenant입니다: " + tenant);
+        return coupons;
+    }
+
+    private void attach(DiscountForm form) {
+        try {
+            catalog.attach(form);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private SessionResult view(SessionResult session, boolean detail) {
+        return SessionResult.builder().token(session.getToken()).result(view(session.getResult(), detail)).build();
+    }
+
+    // 전략별 상세를 뺄 때는 복사본을 만든다
+    private DiscountResult view(DiscountResult result, boolean detail) {
+        return detail ? result : result.toBuilder().singleOrder(null).twoOrders(null).manyOrders(null).build();
+    }
+}
@@ -1,19 +1,33 @@
 package com.jiwoo.noaats.controller;
 
+import com.jiwoo.noaats.config.DiscountProperties;
 import com.jiwoo.noaats.domain.DiscountResult;
 import com.jiwoo.noaats.domain.ProductItem;
 import com.jiwoo.noaats.form.DiscountForm;
-import com.jiwoo.noaats.service.DiscountCalculatorService;
+import com.jiwoo.noaats.service.DiscountDetailFormatter;
+import com.jiwoo.noaats.service.DiscountRequestExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @Controller
 @RequiredArgsConstructor
 public class DiscountController {
 
-    private final DiscountCalculatorService calculatorService;
+    private final DiscountRequestExecutor requestExecutor;
+    private final DiscountDetailFormatter detailFormatter;
+    private final DiscountProperties properties;
+
+    // 입력 칸 상한(화면 안내/추가 버튼 제한용)
+    @ModelAttribute
+    public void limits(Model model) {
+        model.addAttribute("maxProducts", properties.getMaxProducts());
+        model.addAttribute("maxCoupons", properties.getMaxCoupons());
+        model.addAttribute("maxOrders", properties.getSplit().getMaxOrders());
+    }
 
     @GetMapping("/")
     public String home(Model model) {
@@ -24,6 +38,7 @@ public class DiscountController {
         form.setThresholdAmount(0);
         form.setThresholdOff(0);
         form.setPromoBeforeCoupon(true);
+        form.setMaxOrders(2);
 
         model.addAttribute("discountForm", form);
         return "index";
@@ -31,16 +46,24 @@ public class DiscountController {
 
     @PostMapping("/calculate")
     public String calculate(@ModelAttribute("discountForm") DiscountForm form, Model model) {
-    	boolean hasActiveProduct = form.getProducts() != null &&
-    	            form.getProducts().stream().anyMatch(ProductItem::isActive);
-
-    	if (!hasActiveProduct) {
+    	if (!form.hasActiveProduct()) {
     	        model.addAttribute("error", "상품을 최소 1개 이상 입력해주세요.");
     	        return "index";
     	    }
 
-        DiscountResult result = calculatorService.calculateBestStrategy(form);
+        DiscountResult result;
+        try {
+            result = requestExecutor.calculate(form);
+        } catch (RejectedExecutionException e) {
+            model.addAttribute("error", "요청이 많아 계산하지 못했습니다. 잠시 후 다시 시도해주세요.");
+            return "index";
+        }
         model.addAttribute("result", result);
+        // 결과 문자열은 화면에서만 만든다
+        model.addAttribute("summary", detailFormatter.summary(result));
+        model.addAttribute("orderLines", detailFormatter.orderLines(form, result));
+        model.addAttribute("alternativeLines", detailFormatter.alternativeLines(form, result));
+        model.addAttribute("detail", detailFormatter.detail(form, result));
         return "index";
     }
 }
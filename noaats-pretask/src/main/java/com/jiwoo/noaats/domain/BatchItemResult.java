@@ -0,0 +1,12 @@
+package com.jiwoo.noaats.domain;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class BatchItemResult {
+    private int index;              // 요청 배열에서의 위치
+    private DiscountResult result;  // 계산 결과 (입력 오류면 null)
+    private String error;           // 입력 오류 메시지 (정상이면 null)
+}
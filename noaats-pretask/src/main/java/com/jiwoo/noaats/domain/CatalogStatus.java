@@ -0,0 +1,15 @@
+package com.jiwoo.noaats.domain;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class CatalogStatus {
+    private long version;       // 불러올 때마다 1씩 증가 (0 = 카탈로그 없음)
+    private Instant loadedAt;   // 지금 스냅숏을 불러온 시각
+    private int tenants;        // tenant 수
+    private int coupons;        // 전체 쿠폰 수
+}
@@ -4,6 +4,7 @@ import lombok.Data;
 
 @Data
 public class Coupon {
+    private String id;        // 서버 쿠폰 카탈로그 id (카탈로그 쿠폰만)
     private String name;
 
     private String type;      // fixed | percent
@@ -0,0 +1,11 @@
+package com.jiwoo.noaats.domain;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder(toBuilder = true)
+public class CouponAlternative {
+    private int couponIndex;   // 빼는 쿠폰 (요청 coupons 위치, 같은 쿠폰도 함께 뺌)
+    private StrategyPlan plan; // 그 쿠폰 없이 가장 싼 전략
+}
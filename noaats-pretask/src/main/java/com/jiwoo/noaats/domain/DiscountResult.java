@@ -3,8 +3,10 @@ package com.jiwoo.noaats.domain;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class DiscountResult {
     private long baseMerchandise; // 상품 합계(할인 전)
     private long baseShipping;    // 기준 배송비(무료배송 반영: 0 또는 배송비)
@@ -14,6 +16,20 @@ public class DiscountResult {
     private long totalSaved;      // (기준 - 최종) 절감액
     private double savedRate;     // 절감률(%)
 
-    private String summary;       // 사람이 읽는 결과 요약
-    private String detail;        // 계산 과정/플랜(검증용)
+    private boolean optimal;      // 최적해 증명 여부 (근사 탐색이면 false일 수 있음)
+    private long optimalityGap;   // 최종 결제와 결제 하한의 차이(원). optimal이면 0
+    private boolean bestEffort;   // 시간 예산 안에 분할 탐색을 마치지 못한 결과 (그래도 optimal이면 최적 증명됨)
+
+    private int orderCount;           // 추천 전략의 주문 수
+    private List<OrderPlan> orders;   // 추천 전략의 주문별 상품/쿠폰
+
+    // 전략별 최적 (화면 상세/검증용). 사람이 읽는 문자열은 DiscountDetailFormatter가 만든다
+    private int maxOrders;            // 보정된 최대 주문 수
+    private StrategyPlan singleOrder; // 1번에 구매
+    private StrategyPlan twoOrders;   // 2번으로 나눠 구매
+    private StrategyPlan manyOrders;  // 3~maxOrders번으로 나눠 구매
+
+    // 대안 전략 (요청 alternatives > 0일 때만, 아니면 빈 목록)
+    private List<StrategyPlan> alternatives;          // 추천과 주문 수/쿠폰이 다른 가장 싼 전략 (금액 순)
+    private List<CouponAlternative> withoutCoupons;   // 추천이 쓴 쿠폰마다 그 쿠폰 없이 가장 싼 전략
 }
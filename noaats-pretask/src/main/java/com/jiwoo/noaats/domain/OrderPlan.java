@@ -0,0 +1,27 @@
+package com.jiwoo.noaats.domain;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 주문 1건의 구성과 단계별 금액.
+ * 상품/쿠폰은 요청(form)의 목록 위치로 가리키고, 화면용 문자열은 담지 않는다.
+ */
+@Data
+@Builder(toBuilder = true)
+public class OrderPlan {
+    private int[] itemIndices;      // 주문에 담는 상품 (form.products 위치, 오름차순)
+    private int[] quantities;       // 상품별 이 주문에 담는 수량 (수량 단위 분할일 때만, 아니면 null = 상품 수량 전부)
+    private int couponIndex;        // 사용 쿠폰 (form.coupons 위치, 미사용이면 -1)
+
+    private long baseAmount;        // 상품합계(할인전)
+    private long merchandise;       // 상품할인 적용 후 상품 합계
+
+    private boolean promoApplied;   // 금액대할인 조건 충족 여부
+    private long promoDiscount;     // 금액대할인 금액
+    private boolean couponApplied;  // 쿠폰 최소 사용 금액 충족 여부 (미사용이면 false)
+    private long couponDiscount;    // 쿠폰 할인 금액
+
+    private long shipping;          // 적용 배송비 (무료배송이면 0)
+    private long totalPay;          // 주문 최종 결제(배송 포함)
+}
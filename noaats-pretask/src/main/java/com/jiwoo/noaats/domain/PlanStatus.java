@@ -0,0 +1,9 @@
+package com.jiwoo.noaats.domain;
+
+public enum PlanStatus {
+    FOUND,              // 후보를 찾음
+    NOT_REQUESTED,      // 최대 주문 수가 작아 탐색하지 않음
+    NO_CANDIDATE,       // 나눌 상품이 부족함
+    TOO_MANY_PRODUCTS,  // 상품 수가 탐색 상한을 넘어 생략
+    TIMED_OUT           // 시간 제한 안에 탐색을 마치지 못함 (중간 결과)
+}
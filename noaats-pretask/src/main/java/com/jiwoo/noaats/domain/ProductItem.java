@@ -10,8 +10,12 @@ public class ProductItem {
     private boolean active = true; // 상품 칸 활성화 확인
 
     // 상품 자체 할인(선택)
-    private String discountType; // none | fixed | percent
+    private String discountType; // none | fixed | percent | bundle
     private Double discountValue; 
     // fixed면 원(상품 전체 라인에 적용), percent면 %
+
+    // bundle: N개 사면 M개 무료 (N+M개 묶음마다 M개 금액 제외)
+    private Integer bundleBuy;  // N
+    private Integer bundleFree; // M
     
 }
@@ -0,0 +1,10 @@
+package com.jiwoo.noaats.domain;
+
+import lombok.Data;
+
+// 금액대 할인 구간: amount원 이상이면 off원 할인
+@Data
+public class PromoTier {
+    private Integer amount; // 조건 금액
+    private Integer off;    // 할인액
+}
@@ -0,0 +1,11 @@
+package com.jiwoo.noaats.domain;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class SessionResult {
+    private String token;           // 편집 세션 키 (다음 변경 요청에 사용)
+    private DiscountResult result;  // 변경을 반영한 계산 결과
+}
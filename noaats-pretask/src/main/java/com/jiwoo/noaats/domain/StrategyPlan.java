@@ -0,0 +1,20 @@
+package com.jiwoo.noaats.domain;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 전략(1주문 / 2주문 / 3~K주문)별 최적 결과.
+ * status가 FOUND일 때만 금액과 주문 구성이 의미 있다.
+ */
+@Data
+@Builder(toBuilder = true)
+public class StrategyPlan {
+    private PlanStatus status;
+    private long totalPay;          // 전략 최종 결제 (FOUND가 아니면 0)
+    private long lowerBound;        // 결제 하한 (정확 탐색이면 totalPay와 같음)
+    private boolean partial;        // 시간 예산으로 탐색을 중간에 멈춘 최선 후보 (lowerBound까지 더 쌀 수 있음)
+    private List<OrderPlan> orders; // 주문별 구성
+}
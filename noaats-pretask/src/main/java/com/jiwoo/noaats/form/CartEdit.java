@@ -0,0 +1,19 @@
+package com.jiwoo.noaats.form;
+
+import lombok.Data;
+
+/**
+ * 편집 세션에 보내는 변경 1건. 위치는 세션을 연 요청(form)의 상품/쿠폰 목록 기준.
+ * 값이 없는 항목은 그대로 둔다.
+ */
+@Data
+public class CartEdit {
+    // 상품: 수량 / 사용 여부
+    private Integer productIndex;
+    private Integer quantity;
+    private Boolean productActive;
+
+    // 쿠폰: 사용 여부
+    private Integer couponIndex;
+    private Boolean couponActive;
+}
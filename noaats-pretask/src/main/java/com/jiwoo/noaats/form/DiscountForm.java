@@ -2,6 +2,7 @@ package com.jiwoo.noaats.form;
 
 import com.jiwoo.noaats.domain.Coupon;
 import com.jiwoo.noaats.domain.ProductItem;
+import com.jiwoo.noaats.domain.PromoTier;
 import lombok.Data;
 
 import java.util.ArrayList;
@@ -9,15 +10,21 @@ import java.util.List;
 
 @Data
 public class DiscountForm {
-    // 상품(최대 5개)
+    // 상품(최대 discount.max-products개)
     private List<ProductItem> products = new ArrayList<>();
 
-    // 보유 쿠폰(최대 3개)
+    // 보유 쿠폰(최대 discount.max-coupons개)
     private List<Coupon> coupons = new ArrayList<>();
 
+    // 서버 쿠폰 카탈로그의 쿠폰 id (JSON API). coupons 뒤에 이 순서로 이어 붙여 계산 → 결과 couponIndex도 그 위치
+    private String tenant;            // 미입력이면 "default"
+    private List<String> couponIds = new ArrayList<>();
+
     // 프로모션: 금액대 할인(주문 단위)
     private Integer thresholdAmount; // 조건 금액
     private Integer thresholdOff;    // 할인액
+    // 추가 금액대 구간(선택). 도달한 구간 중 가장 큰 할인 1개만 적용
+    private List<PromoTier> promoTiers = new ArrayList<>();
 
     // 프로모션 적용 순서
     // true: 금액대 할인 → 쿠폰
@@ -27,4 +34,21 @@ public class DiscountForm {
     // 배송 관련
     private Integer shippingFee;
     private Integer freeShippingThreshold;
+
+    // 최대 주문 수(나눠 구매 횟수). 미입력이면 2
+    private Integer maxOrders;
+
+    // 2번 나눠 구매에서 한 상품의 수량을 두 주문에 나눠 담기. 미입력이면 설정값(discount.split.split-quantities)
+    private Boolean splitQuantities;
+
+    // 계산 시간 예산(ms). 미입력이면 설정값(discount.split.time-budget), 0 이하면 제한 없음
+    private Integer timeBudgetMillis;
+
+    // 추천 외 대안 전략 수(0~10). 미입력이면 설정값(discount.split.alternatives)
+    private Integer alternatives;
+
+    // 계산 가능한 입력인지(활성 상품 1개 이상)
+    public boolean hasActiveProduct() {
+        return products != null && products.stream().anyMatch(p -> p != null && p.isActive());
+    }
 }
@@ -0,0 +1,72 @@
+package com.jiwoo.noaats.service;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * 결과 캐시 키.
+ * 계산에 쓰이는 값만 정규화해서(CartInputs에서 컴파일한 정수 값) 이어 붙이고, 상품/쿠폰은 각각 정렬해 입력 순서와 무관하게 만든다.
+ * 이름은 길이를 앞에 붙여 구분자와 섞여도 다른 입력이 같은 키가 되지 않게 한다.
+ *
+ * 정렬 순서(productOrder/couponOrder)는 캐시된 결과의 상품/쿠폰 위치를 나타내는 기준이다.
+ * 같은 키의 상품/쿠폰은 서로 바꿔도 계산 결과가 같으므로, 순서가 다른 요청도 이 순서를 거쳐 자기 위치로 옮길 수 있다.
+ */
+final class CartFingerprint {
+
+    final String key;
+    final int[] productOrder; // 정렬 순위 → 입력 위치
+    final int[] couponOrder;
+
+    private CartFingerprint(String key, int[] productOrder, int[] couponOrder) {
+        this.key = key;
+        this.productOrder = productOrder;
+        this.couponOrder = couponOrder;
+    }
+
+    static CartFingerprint of(CartInputs inputs,
+                              long[][] tiers, boolean promoBeforeCoupon,
+                              int shippingFee, int freeShip, int maxOrders, boolean splitQuantities,
+                              int alternatives) {
+
+        String[] items = new String[inputs.products()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = text(inputs.productName[i])
+                    + inputs.price[i] + ";" + inputs.quantity[i] + ";"
+                    + inputs.discount[i].key() + ";";
+        }
+        int[] productOrder = sortedOrder(items);
+
+        String[] owned = new String[inputs.coupons()];
+        for (int i = 0; i < owned.length; i++) {
+            owned[i] = text(inputs.couponName[i]) + CouponRule.key(inputs.couponRule[i]) + ";";
+        }
+        int[] couponOrder = sortedOrder(owned);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("P").append(items.length);
+        for (int i : productOrder) sb.append('[').append(items[i]).append(']');
+        sb.append("C").append(owned.length);
+        for (int i : couponOrder) sb.append('[').append(owned[i]).append(']');
+        // 금액대 할인은 정리된 구간(OrderRules.tiers)으로: 입력 순서나 효과 없는 구간이 달라도 같은 키
+        sb.append("T").append(tiers[0].length);
+        for (int i = 0; i < tiers[0].length; i++) sb.append('[').append(tiers[0][i]).append(',').append(tiers[1][i]).append(']');
+        sb.append(promoBeforeCoupon);
+        sb.append("S").append(shippingFee).append(',').append(freeShip);
+        sb.append("K").append(maxOrders);
+        if (splitQuantities) sb.append("Q");
+        if (alternatives > 0) sb.append("A").append(alternatives);
+        return new CartFingerprint(sb.toString(), productOrder, couponOrder);
+    }
+
+    // 키 오름차순 위치 (같은 키는 입력 순서)
+    private static int[] sortedOrder(String[] keys) {
+        return IntStream.range(0, keys.length).boxed()
+                .sorted(Comparator.comparing(i -> keys[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static String text(String s) {
+        return s == null ? "-;" : s.length() + ":" + s + ";";
+    }
+}
@@ -0,0 +1,120 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.ProductItem;
+import com.jiwoo.noaats.form.DiscountForm;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 계산에 쓰는 상품/쿠폰 (활성 + 유효 값만, 설정 상한까지).
+ *
+ * 요청 form을 한 번만 훑어 검증하면서 값을 배열(칸 = 정리된 위치)로 옮긴다.
+ * 빈 값(null)은 여기서 0으로 바꾸고 할인 규칙도 여기서 한 번만 컴파일하므로,
+ * 이후 계산은 form의 박싱된 값(Integer/Double)이나 문자열을 다시 읽지 않는다.
+ * 결과의 상품/쿠폰 위치를 요청(form) 목록 위치로 되돌릴 수 있도록 원래 위치를 함께 기록한다.
+ */
+final class CartInputs {
+
+    // 상품 라인
+    final long[] price;
+    final int[] quantity;
+    final LineDiscount[] discount; // 라인 자체 할인 규칙
+    final String[] productName;    // 캐시 키용
+    final int[] productIndex;      // 정리된 위치 → form.products 위치
+
+    // 쿠폰
+    final CouponRule[] couponRule; // null이면 효과 없는 종류
+    final String[] couponName;     // 같은 쿠폰 판별 / 캐시 키용
+    final Coupon[] coupon;         // 이름 없는 쿠폰의 동일성 판별용 (값은 읽지 않음)
+    final int[] couponIndex;       // 정리된 위치 → form.coupons 위치
+
+    private CartInputs(int products, int coupons) {
+        this.price = new long[products];
+        this.quantity = new int[products];
+        this.discount = new LineDiscount[products];
+        this.productName = new String[products];
+        this.productIndex = new int[products];
+        this.couponRule = new CouponRule[coupons];
+        this.couponName = new String[coupons];
+        this.coupon = new Coupon[coupons];
+        this.couponIndex = new int[coupons];
+    }
+
+    private CartInputs(CartInputs full, int products, int coupons) {
+        this.price = Arrays.copyOf(full.price, products);
+        this.quantity = Arrays.copyOf(full.quantity, products);
+        this.discount = Arrays.copyOf(full.discount, products);
+        this.productName = Arrays.copyOf(full.productName, products);
+        this.productIndex = Arrays.copyOf(full.productIndex, products);
+        this.couponRule = Arrays.copyOf(full.couponRule, coupons);
+        this.couponName = Arrays.copyOf(full.couponName, coupons);
+        this.coupon = Arrays.copyOf(full.coupon, coupons);
+        this.couponIndex = Arrays.copyOf(full.couponIndex, coupons);
+    }
+
+    static CartInputs of(DiscountForm form, int maxProducts, int maxCoupons) {
+        List<ProductItem> inProducts = form.getProducts() == null ? List.of() : form.getProducts();
+        List<Coupon> inCoupons = form.getCoupons() == null ? List.of() : form.getCoupons();
+        CartInputs in = new CartInputs(Math.min(inProducts.size(), maxProducts), Math.min(inCoupons.size(), maxCoupons));
+
+        int products = 0;
+        for (int i = 0; i < inProducts.size() && products < in.price.length; i++) {
+            ProductItem p = inProducts.get(i);
+            if (p == null || !p.isActive()) continue;
+            Integer price = p.getPrice(), quantity = p.getQuantity();
+            if ((price != null && price < 0) || quantity == null || quantity <= 0) continue;
+            in.price[products] = price == null ? 0 : price;
+            in.quantity[products] = quantity;
+            in.discount[products] = LineDiscount.compile(p);
+            in.productName[products] = p.getName();
+            in.productIndex[products++] = i;
+        }
+
+        int coupons = 0;
+        for (int i = 0; i < inCoupons.size() && coupons < in.couponRule.length; i++) {
+            Coupon c = inCoupons.get(i);
+            if (c == null || !c.isActive()) continue;
+            if (c.getType() == null || c.getValue() == null || c.getValue() <= 0) continue;
+            in.couponRule[coupons] = CouponRule.of(c);
+            in.couponName[coupons] = c.getName();
+            in.coupon[coupons] = c;
+            in.couponIndex[coupons++] = i;
+        }
+
+        return products == in.price.length && coupons == in.couponRule.length ? in : new CartInputs(in, products, coupons);
+    }
+
+    int products() {
+        return price.length;
+    }
+
+    int coupons() {
+        return couponRule.length;
+    }
+
+    // 할인 전 라인 금액
+    long lineBase(int i) {
+        return price[i] * quantity[i];
+    }
+
+    // 상품할인 후 라인 금액
+    long lineDiscounted(int i) {
+        return discount[i].apply(price[i], quantity[i]);
+    }
+
+    // 같은 쿠폰인지: 둘 다 이름이 있으면 이름으로, 아니면 객체 동일성으로
+    boolean sameCoupon(int a, int b) {
+        if (couponName[a] != null && couponName[b] != null) return couponName[a].equals(couponName[b]);
+        return coupon[a] == coupon[b];
+    }
+
+    // form 위치 → 정리된 위치 (계산에서 빠진 항목은 -1)
+    static int[] inverse(int[] index, int size) {
+        int[] inverse = new int[size];
+        Arrays.fill(inverse, -1);
+        for (int i = 0; i < index.length; i++) inverse[index[i]] = i;
+        return inverse;
+    }
+}
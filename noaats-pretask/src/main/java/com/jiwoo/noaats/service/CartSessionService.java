@@ -0,0 +1,114 @@
+package com.jiwoo.noaats.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.ProductItem;
+import com.jiwoo.noaats.domain.SessionResult;
+import com.jiwoo.noaats.form.CartEdit;
+import com.jiwoo.noaats.form.DiscountForm;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 장바구니 편집 세션 (토큰 기반).
+ * 처음 요청한 장바구니와 계산 상태(DiscountCalculatorService.Snapshot)를 서버에 두고,
+ * 이후에는 바뀐 상품 수량 / 상품·쿠폰 사용 여부 1건만 받아 이전 계산을 이어서 다시 계산한다.
+ * 세션은 마지막 요청 후 idle-timeout이 지나거나 상한을 넘으면 사라진다 (그때는 새로 연다).
+ */
+@Service
+public class CartSessionService {
+
+    private final DiscountCalculatorService calculatorService;
+    private final Cache<String, Session> sessions;
+
+    public CartSessionService(DiscountCalculatorService calculatorService, DiscountProperties properties) {
+        this.calculatorService = calculatorService;
+        DiscountProperties.Session config = properties.getSession();
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterAccess(config.getIdleTimeout())
+                .build();
+    }
+
+    // form은 세션이 그대로 들고 이후 변경을 반영한다 (호출한 쪽에서 다시 쓰지 않는 요청 객체)
+    public SessionResult open(DiscountForm form) {
+        Session session = new Session(form);
+        String token = UUID.randomUUID().toString();
+        SessionResult result;
+        synchronized (session) {
+            result = session.calculate(calculatorService, token);
+        }
+        sessions.put(token, session);
+        return result;
+    }
+
+    /**
+     * @return 변경을 반영한 결과. 없는(만료된) 세션이면 null
+     * @throws IllegalArgumentException 위치가 범위를 벗어나거나 수량이 1 미만, 활성 상품이 남지 않는 변경
+     */
+    public SessionResult edit(String token, CartEdit edit) {
+        Session session = sessions.getIfPresent(token);
+        if (session == null) return null;
+        synchronized (session) {
+            session.apply(edit);
+            return session.calculate(calculatorService, token);
+        }
+    }
+
+    public void close(String token) {
+        sessions.invalidate(token);
+    }
+
+    private static class Session {
+        final DiscountForm form;
+        final DiscountCalculatorService.Snapshot snapshot = new DiscountCalculatorService.Snapshot();
+
+        Session(DiscountForm form) {
+            this.form = form;
+        }
+
+        SessionResult calculate(DiscountCalculatorService calculatorService, String token) {
+            return SessionResult.builder()
+                    .token(token)
+                    .result(calculatorService.recalculate(form, snapshot))
+                    .build();
+        }
+
+        // 검증을 모두 통과한 뒤에만 form을 바꾼다
+        void apply(CartEdit edit) {
+            ProductItem product = edit.getProductIndex() == null ? null : at(form.getProducts(), edit.getProductIndex(), "상품");
+            Coupon coupon = edit.getCouponIndex() == null ? null : at(form.getCoupons(), edit.getCouponIndex(), "쿠폰");
+            if (product != null && edit.getQuantity() != null && edit.getQuantity() < 1) {
+                throw new IllegalArgumentException("수량은 1 이상이어야 합니다.");
+            }
+            if (product != null && Boolean.FALSE.equals(edit.getProductActive())
+                    && form.getProducts().stream().noneMatch(p -> p != null && p != product && p.isActive())) {
+                throw new IllegalArgumentException("상품을 최소 1개 이상 입력해주세요.");
+            }
+
+            if (product != null) {
+                if (edit.getQuantity() != null) product.setQuantity(edit.getQuantity());
+                if (edit.getProductActive() != null) product.setActive(edit.getProductActive());
+            }
+            if (coupon != null && edit.getCouponActive() != null) {
+                // 카탈로그 쿠폰은 공유 객체: 이 세션용 복사본으로 바꿔서 고친다
+                if (coupon instanceof CatalogCoupon) {
+                    coupon = ((CatalogCoupon) coupon).copy();
+                    form.getCoupons().set(edit.getCouponIndex(), coupon);
+                }
+                coupon.setActive(edit.getCouponActive());
+            }
+        }
+
+        private static <T> T at(List<T> items, int index, String label) {
+            if (items == null || index < 0 || index >= items.size() || items.get(index) == null) {
+                throw new IllegalArgumentException(label + " 위치가 올바르지 않습니다: " + index);
+            }
+            return items.get(index);
+        }
+    }
+}
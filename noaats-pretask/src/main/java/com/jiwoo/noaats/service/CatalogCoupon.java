@@ -0,0 +1,76 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.domain.Coupon;
+
+/**
+ * 카탈로그 쿠폰: 스냅숏 하나의 모든 요청/스레드가 같은 객체를 공유하므로 값을 바꿀 수 없다.
+ * 컴파일된 규칙(rule)을 함께 들고 있어 OrderRules가 요청마다 다시 해석하지 않는다.
+ * 요청에서 바꿔야 하면(세션의 사용 여부 변경 등) copy()로 일반 쿠폰을 만들어 쓴다.
+ */
+final class CatalogCoupon extends Coupon {
+
+    final CouponRule rule;
+
+    CatalogCoupon(Coupon source) {
+        super.setId(source.getId());
+        super.setName(source.getName());
+        super.setType(source.getType());
+        super.setValue(source.getValue());
+        super.setMinSpend(source.getMinSpend());
+        super.setMaxDiscount(source.getMaxDiscount());
+        super.setActive(true);
+        this.rule = CouponRule.compile(this);
+    }
+
+    // 같은 값의 일반(수정 가능한) 쿠폰
+    Coupon copy() {
+        Coupon c = new Coupon();
+        c.setId(getId());
+        c.setName(getName());
+        c.setType(getType());
+        c.setValue(getValue());
+        c.setMinSpend(getMinSpend());
+        c.setMaxDiscount(getMaxDiscount());
+        c.setActive(isActive());
+        return c;
+    }
+
+    @Override
+    public void setId(String id) {
+        throw shared();
+    }
+
+    @Override
+    public void setName(String name) {
+        throw shared();
+    }
+
+    @Override
+    public void setType(String type) {
+        throw shared();
+    }
+
+    @Override
+    public void setValue(Double value) {
+        throw shared();
+    }
+
+    @Override
+    public void setMinSpend(Integer minSpend) {
+        throw shared();
+    }
+
+    @Override
+    public void setMaxDiscount(Integer maxDiscount) {
+        throw shared();
+    }
+
+    @Override
+    public void setActive(boolean active) {
+        throw shared();
+    }
+
+    private static UnsupportedOperationException shared() {
+        return new UnsupportedOperationException("카탈로그 쿠폰은 여러 요청이 공유하므로 바꿀 수 없습니다.");
+    }
+}
@@ -0,0 +1,215 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.CatalogStatus;
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.form.DiscountForm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 서버 쿠폰 카탈로그 (tenant별 쿠폰 id → 쿠폰).
+ *
+ * 파일 전체를 불변 스냅숏 하나로 만들고 AtomicReference로 통째로 바꾼다(copy-on-write).
+ * 요청은 스냅숏을 한 번만 읽어 그 버전으로 끝까지 계산하므로 잠금 없이 읽고, 다시 불러오는 중에도 멈추지 않는다.
+ * 쿠폰은 불러올 때 한 번 검증/컴파일(CatalogCoupon)해 두고 모든 요청이 같은 객체를 쓴다.
+ * 파일이 잘못되면 지금 스냅숏을 그대로 둔다 (기동 시에는 기동 실패).
+ */
+@Slf4j
+@Component
+public class CouponCatalog implements DisposableBean {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final TypeReference<Map<String, List<Coupon>>> FILE = new TypeReference<>() {};
+
+    private final JsonMapper jsonMapper;
+    private final Path source; // null이면 카탈로그 없음
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+    private final ScheduledExecutorService watcher;
+    private FileTime rejected; // 마지막으로 불러오지 못한 파일 시각 (같은 파일을 반복해서 경고하지 않도록)
+
+    public CouponCatalog(DiscountProperties properties, JsonMapper jsonMapper) {
+        DiscountProperties.Catalog config = properties.getCatalog();
+        this.jsonMapper = jsonMapper;
+        this.source = config.getPath() == null || config.getPath().isBlank() ? null : Path.of(config.getPath());
+        if (source != null) reload();
+
+        long interval = config.getReloadInterval().toMillis();
+        this.watcher = source == null || interval <= 0 ? null : Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "coupon-catalog");
+            t.setDaemon(true);
+            return t;
+        });
+        if (watcher != null) watcher.scheduleWithFixedDelay(this::reloadIfChanged, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 요청의 couponIds를 카탈로그 쿠폰으로 바꿔 coupons 뒤에 이어 붙인다 (form을 고침, couponIds는 비움).
+     * @throws IllegalArgumentException 카탈로그가 없거나, 없는 tenant/쿠폰 id
+     */
+    public void attach(DiscountForm form) {
+        List<String> ids = form.getCouponIds();
+        if (ids == null || ids.isEmpty()) return;
+
+        Snapshot snapshot = current.get();
+        if (snapshot.version == 0) throw new IllegalArgumentException("쿠폰 카탈로그가 설정되지 않았습니다.");
+        String name = form.getTenant() == null ? DEFAULT_TENANT : form.getTenant();
+        Tenant tenant = snapshot.tenants.get(name);
+        if (tenant == null) throw new IllegalArgumentException("카탈로그에 없는 tenant입니다: " + name);
+
+        List<Coupon> coupons = form.getCoupons() == null ? new ArrayList<>() : new ArrayList<>(form.getCoupons());
+        for (String id : ids) {
+            CatalogCoupon coupon = tenant.byId.get(id);
+            if (coupon == null) throw new IllegalArgumentException("카탈로그에 없는 쿠폰입니다: " + name + "/" + id);
+            coupons.add(coupon);
+        }
+        form.setCoupons(coupons);
+        form.setCouponIds(new ArrayList<>());
+    }
+
+    // tenant의 쿠폰 (최소 사용 금액 오름차순). 없는 tenant면 null
+    public List<Coupon> coupons(String tenant) {
+        Tenant t = current.get().tenants.get(tenant);
+        return t == null ? null : t.byMinSpend;
+    }
+
+    public CatalogStatus status() {
+        return current.get().status();
+    }
+
+    /**
+     * 파일을 다시 읽어 새 스냅숏으로 바꾼다.
+     * @throws IllegalStateException 카탈로그 경로가 설정되지 않음
+     * @throws IllegalArgumentException 파일 형식이나 쿠폰 값이 잘못됨 (지금 스냅숏 유지)
+     * @throws UncheckedIOException 파일을 읽지 못함 (지금 스냅숏 유지)
+     */
+    public synchronized CatalogStatus reload() {
+        if (source == null) throw new IllegalStateException("쿠폰 카탈로그 경로(discount.catalog.path)가 없습니다.");
+        FileTime modified = null;
+        try {
+            modified = Files.getLastModifiedTime(source);
+            Map<String, List<Coupon>> file = jsonMapper.readValue(source.toFile(), FILE);
+            Snapshot next = Snapshot.of(current.get().version + 1, modified, file);
+            current.set(next);
+            log.info("쿠폰 카탈로그 버전 {}: tenant {}개, 쿠폰 {}장 ({})", next.version, next.tenants.size(), next.coupons, source);
+            return next.status();
+        } catch (IOException e) {
+            rejected = modified;
+            throw new UncheckedIOException("쿠폰 카탈로그를 읽지 못했습니다: " + source, e);
+        } catch (JacksonException e) {
+            rejected = modified;
+            throw new IllegalArgumentException("쿠폰 카탈로그 형식이 잘못되었습니다: " + e.getOriginalMessage(), e);
+        } catch (IllegalArgumentException e) {
+            rejected = modified;
+            throw e;
+        }
+    }
+
+    // 파일 시각이 바뀌었을 때만 다시 읽는다. 실패하면 지금 버전을 계속 쓴다
+    private void reloadIfChanged() {
+        try {
+            FileTime modified = Files.getLastModifiedTime(source);
+            if (modified.equals(current.get().modified) || modified.equals(rejected)) return;
+            reload();
+        } catch (IOException | RuntimeException e) {
+            log.warn("쿠폰 카탈로그 버전 {}을 계속 사용합니다: {}", current.get().version, e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (watcher != null) watcher.shutdownNow();
+    }
+
+    /* ------------------------
+       불변 스냅숏
+       ------------------------ */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, null, Map.of(), 0);
+
+        final long version;
+        final FileTime modified;
+        final Instant loadedAt = Instant.now();
+        final Map<String, Tenant> tenants;
+        final int coupons;
+
+        Snapshot(long version, FileTime modified, Map<String, Tenant> tenants, int coupons) {
+            this.version = version;
+            this.modified = modified;
+            this.tenants = tenants;
+            this.coupons = coupons;
+        }
+
+        // 검증: id 필수/tenant 안에서 중복 불가, 종류 fixed|percent, 값 > 0. 사용 안 함(active=false) 쿠폰은 뺀다
+        static Snapshot of(long version, FileTime modified, Map<String, List<Coupon>> file) {
+            if (file == null) throw new IllegalArgumentException("쿠폰 카탈로그가 비어 있습니다.");
+            Map<String, Tenant> tenants = new HashMap<>();
+            int count = 0;
+            for (Map.Entry<String, List<Coupon>> e : file.entrySet()) {
+                String tenant = e.getKey();
+                Map<String, CatalogCoupon> byId = new HashMap<>();
+                for (Coupon c : e.getValue() == null ? List.<Coupon>of() : e.getValue()) {
+                    if (c == null || c.getId() == null || c.getId().isBlank()) {
+                        throw new IllegalArgumentException("쿠폰 id가 없습니다: " + tenant);
+                    }
+                    String where = tenant + "/" + c.getId();
+                    if (!"fixed".equals(c.getType()) && !"percent".equals(c.getType())) {
+                        throw new IllegalArgumentException("쿠폰 종류는 fixed 또는 percent입니다: " + where);
+                    }
+                    if (c.getValue() == null || c.getValue() <= 0) {
+                        throw new IllegalArgumentException("쿠폰 값은 0보다 커야 합니다: " + where);
+                    }
+                    if (byId.containsKey(c.getId())) throw new IllegalArgumentException("쿠폰 id가 중복됩니다: " + where);
+                    if (!c.isActive()) continue;
+                    byId.put(c.getId(), new CatalogCoupon(c));
+                }
+                List<Coupon> byMinSpend = new ArrayList<>(byId.values());
+                byMinSpend.sort(Comparator.comparingInt((Coupon c) -> c.getMinSpend() == null ? 0 : c.getMinSpend())
+                        .thenComparing(Coupon::getId));
+                tenants.put(tenant, new Tenant(Map.copyOf(byId), List.copyOf(byMinSpend)));
+                count += byId.size();
+            }
+            return new Snapshot(version, modified, Map.copyOf(tenants), count);
+        }
+
+        CatalogStatus status() {
+            return CatalogStatus.builder()
+                    .version(version)
+                    .loadedAt(version == 0 ? null : loadedAt)
+                    .tenants(tenants.size())
+                    .coupons(coupons)
+                    .build();
+        }
+    }
+
+    private static final class Tenant {
+        final Map<String, CatalogCoupon> byId;
+        final List<Coupon> byMinSpend;
+
+        Tenant(Map<String, CatalogCoupon> byId, List<Coupon> byMinSpend) {
+            this.byId = byId;
+            this.byMinSpend = byMinSpend;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.domain.Coupon;
+
+/**
+ * 쿠폰 1장의 컴파일된 규칙 (OrderRules 규칙 배열 1칸).
+ * 요청 쿠폰은 요청마다, 카탈로그 쿠폰은 불러올 때 한 번만 만들어 모든 요청이 같이 쓴다 (불변).
+ */
+final class CouponRule {
+
+    final byte kind;      // OrderRules.COUPON_FIXED / COUPON_PERCENT
+    final long minSpend;  // 최소 사용 금액
+    final long off;       // 정액 할인액
+    final long bp;        // 정률 basis point (0~10000, Money)
+    final long cap;       // 정률 한도 (0 = 없음)
+
+    private CouponRule(byte kind, long minSpend, long off, long bp, long cap) {
+        this.kind = kind;
+        this.minSpend = minSpend;
+        this.off = off;
+        this.bp = bp;
+        this.cap = cap;
+    }
+
+    // 카탈로그 쿠폰은 불러올 때 컴파일해 둔 규칙, 요청 쿠폰은 여기서 컴파일
+    static CouponRule of(Coupon c) {
+        return c instanceof CatalogCoupon ? ((CatalogCoupon) c).rule : compile(c);
+    }
+
+    // 효과 없는 종류면 null. 값(Double)은 여기서 한 번만 정수로 바꾼다
+    static CouponRule compile(Coupon c) {
+        long minSpend = c.getMinSpend() == null ? 0 : c.getMinSpend();
+        if ("fixed".equals(c.getType())) {
+            // 정액 할인은 소수점 이하 절사
+            long off = c.getValue() == null ? 0 : Math.max(0, c.getValue().longValue());
+            return new CouponRule(OrderRules.COUPON_FIXED, minSpend, off, 0, 0);
+        }
+        if ("percent".equals(c.getType())) {
+            long cap = c.getMaxDiscount() == null ? 0 : c.getMaxDiscount();
+            return new CouponRule(OrderRules.COUPON_PERCENT, minSpend, 0, Money.bp(c.getValue()), cap);
+        }
+        return null;
+    }
+
+    // 캐시 키: 계산에 쓰는 정규화된 값만 (효과 없는 쿠폰은 "-")
+    static String key(CouponRule rule) {
+        if (rule == null) return "-";
+        return rule.kind + ":" + rule.minSpend + ":" + rule.off + ":" + rule.bp + ":" + rule.cap;
+    }
+}
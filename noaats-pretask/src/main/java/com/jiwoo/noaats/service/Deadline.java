@@ -0,0 +1,38 @@
+package com.jiwoo.noaats.service;
+
+/**
+ * 요청 1건의 계산 시간 예산.
+ * 탐색 루프가 일정 횟수마다 passed()를 확인하고, 지났으면 그때까지의 최선 후보로 멈춘다.
+ */
+final class Deadline {
+
+    static final Deadline NONE = new Deadline(false, 0);
+
+    private final boolean bounded;
+    private final long at; // System.nanoTime() 기준 마감 시각
+
+    private Deadline(boolean bounded, long at) {
+        this.bounded = bounded;
+        this.at = at;
+    }
+
+    // start: System.nanoTime() 시작값, budgetNanos가 0 이하면 제한 없음
+    static Deadline after(long start, long budgetNanos) {
+        return budgetNanos <= 0 ? NONE : new Deadline(true, start + budgetNanos);
+    }
+
+    // 둘 중 먼저 오는 마감 (계산 예산과 요청 시간 제한)
+    Deadline earlier(Deadline other) {
+        if (!other.bounded) return this;
+        if (!bounded) return other;
+        return at - other.at <= 0 ? this : other;
+    }
+
+    boolean bounded() {
+        return bounded;
+    }
+
+    boolean passed() {
+        return bounded && System.nanoTime() - at >= 0;
+    }
+}
@@ -1,56 +1,354 @@
 package com.jiwoo.noaats.service;
 
-import com.jiwoo.noaats.domain.Coupon;
-
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.CouponAlternative;
 import com.jiwoo.noaats.domain.DiscountResult;
-import com.jiwoo.noaats.domain.ProductItem;
+import com.jiwoo.noaats.domain.OrderPlan;
+import com.jiwoo.noaats.domain.PlanStatus;
+import com.jiwoo.noaats.domain.StrategyPlan;
 import com.jiwoo.noaats.form.DiscountForm;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
+@RequiredArgsConstructor
 public class DiscountCalculatorService {
 
+    // 기준 구현(완전 탐색)이 감당할 수 있는 상품 수: mask별 합계 표 2^N
+    static final int EXHAUSTIVE_LIMIT = 20;
+    // 3주문 이상 부분집합 DP가 감당할 수 있는 상품 수: 쿠폰 묶음 x K x 3^N
+    static final int PARTITION_LIMIT = 16;
+    // 병렬 완전 탐색에서 더 나누지 않는 mask 구간 크기
+    static final int PARALLEL_LEAF_MIN = 64;
+    // 요청 1건의 대안 전략 수 상한
+    static final int MAX_ALTERNATIVES = 10;
+    // 품목으로 나타낼 수 없는 수량 분할이 있을 때 수량 조합을 전부 보는 조합 수 상한 (라인별 수량+1의 곱)
+    static final int QUANTITY_ENUMERATION_LIMIT = 1 << 12;
+
+    private final DiscountProperties properties;
+    private final ForkJoinPool splitSearchPool;
+    private final DiscountResultCache resultCache;
+    private final DiscountMetrics metrics;
+
     public DiscountResult calculateBestStrategy(DiscountForm form) {
-        List<ProductItem> products = safeProducts(form.getProducts());
-        List<Coupon> coupons = safeCoupons(form.getCoupons());
+        long start = System.nanoTime();
+        Deadline deadline = deadline(form, start);
+        Cart cart = prepare(form);
+        // 같은 장바구니(상품/쿠폰 순서 무관)는 캐시된 결과를 이 요청의 상품/쿠폰 위치로 옮겨 사용
+        DiscountResult result = forRequest(cached(cart, deadline, () -> calculate(cart, null, null, null, false, deadline)), cart);
+        metrics.request(start);
+        return result;
+    }
+
+    /*
+     * 결과 캐시를 거치지 않는 계산 (일괄 재계산용).
+     * 대부분 한 번만 보는 장바구니라 캐시에 넣어도 다시 읽지 않고 화면/API 요청의 캐시 항목만 밀어내므로,
+     * 캐시 키(CartFingerprint)도 만들지 않고 정리된 순서 그대로 계산해 form 위치로 옮긴다.
+     */
+    public DiscountResult calculateWithoutCache(DiscountForm form) {
+        long start = System.nanoTime();
+        Deadline deadline = deadline(form, start);
+        Cart cart = prepare(form, false);
+        DiscountResult result = forRequest(calculate(cart, null, null, null, false, deadline), cart);
+        metrics.request(start);
+        return result;
+    }
+
+    /*
+     * 편집 세션(CartSessionService)용 계산.
+     * snapshot에 남은 이전 계산의 라인 금액 / mask별 합계에서 바뀐 라인만 고치고(쿠폰만 바뀌면 그대로),
+     * 이전 최적 분할을 새 금액으로 다시 매겨 첫 답 후보에 넣는다 → 탐색은 그보다 확실히 비싼 구간을 건너뛴다.
+     * 결과는 처음부터 계산한 것과 같다.
+     */
+    DiscountResult recalculate(DiscountForm form, Snapshot snapshot) {
+        long start = System.nanoTime();
+        Deadline deadline = deadline(form, start);
+        Cart cart = prepare(form);
+        Precomputed pre = snapshot.update(precompute(cart.inputs));
+        DiscountResult result = forRequest(cached(cart, deadline,
+                () -> calculate(cart, pre, snapshot, null, false, deadline)), cart);
+        metrics.request(start);
+        return result;
+    }
+
+    /*
+     * 시간 제한 계산용 (DiscountRequestExecutor).
+     * 요청의 시간 제한(limit)과 계산 예산 중 먼저 오는 때에 탐색을 멈춘다 (응답을 보낸 뒤 풀 스레드를 붙잡지 않도록).
+     * 전략 하나를 끝낼 때마다 그때까지의 최선 결과를 progress로 알리고, 끝까지 계산한 결과만 캐시한다.
+     */
+    DiscountResult calculateBestStrategy(DiscountForm form, Deadline limit, Consumer<DiscountResult> progress) {
+        long start = System.nanoTime();
+        Deadline deadline = deadline(form, start).earlier(limit);
+        Cart cart = prepare(form);
+        Consumer<DiscountResult> remapped = soFar -> progress.accept(forRequest(soFar, cart));
+        DiscountResult result = forRequest(cached(cart, deadline,
+                () -> calculate(cart, null, null, remapped, false, deadline)), cart);
+        metrics.request(start);
+        return result;
+    }
+
+    // 1주문 최적까지만 계산한 결과 (분할 탐색은 TIMED_OUT). 캐시하지 않음
+    DiscountResult firstResult(DiscountForm form) {
+        Cart cart = prepare(form);
+        return forRequest(calculate(cart, null, null, null, true, Deadline.NONE), cart);
+    }
+
+    // 여러 장바구니를 한 번에 계산. 묶음 안에서 같은 장바구니는 한 번만 계산해 결과를 공유
+    public List<DiscountResult> calculateAll(List<DiscountForm> forms) {
+        Map<String, DiscountResult> computed = new HashMap<>();
+        List<DiscountResult> results = new ArrayList<>(forms.size());
+        for (DiscountForm form : forms) {
+            long start = System.nanoTime();
+            Deadline deadline = deadline(form, start);
+            Cart cart = prepare(form);
+            DiscountResult result = computed.computeIfAbsent(cart.key,
+                    key -> cached(cart, deadline, () -> calculate(cart, null, null, null, false, deadline)));
+            results.add(forRequest(result, cart));
+            metrics.request(start);
+        }
+        return results;
+    }
+
+    /*
+     * 시간 예산이 없으면 같은 장바구니 계산을 캐시가 한 번만 하도록 맡기고,
+     * 있으면 예산 안에 끝까지 탐색한 결과만 캐시한다 (중간에 멈춘 결과를 예산이 넉넉한 요청이 받지 않도록)
+     */
+    private DiscountResult cached(Cart cart, Deadline deadline, Supplier<DiscountResult> calculator) {
+        if (!deadline.bounded()) return resultCache.get(cart.key, k -> calculator.get());
+
+        DiscountResult hit = resultCache.getIfPresent(cart.key);
+        if (hit != null) return hit;
+        DiscountResult result = calculator.get();
+        if (!result.isBestEffort()) resultCache.put(cart.key, result);
+        return result;
+    }
+
+    // 계산 시간 예산: 요청 값(ms)이 있으면 그 값, 없으면 설정값. 0 이하면 제한 없음
+    private Deadline deadline(DiscountForm form, long start) {
+        long budget = form.getTimeBudgetMillis() != null
+                ? TimeUnit.MILLISECONDS.toNanos(form.getTimeBudgetMillis())
+                : properties.getSplit().getTimeBudget().toNanos();
+        return Deadline.after(start, budget);
+    }
+
+    private Cart prepare(DiscountForm form) {
+        return prepare(form, true);
+    }
+
+    // 입력 정리: 활성 상품/쿠폰만, 빈 값은 0, 최대 주문 수 보정. keyed=false면 캐시 키 없이 (calculateWithoutCache)
+    private Cart prepare(DiscountForm form, boolean keyed) {
+        long start = System.nanoTime();
+        CartInputs inputs = CartInputs.of(form, properties.getMaxProducts(), properties.getMaxCoupons());
 
         boolean promoBeforeCoupon = form.getPromoBeforeCoupon() == null || form.getPromoBeforeCoupon(); // true면 프로모션→쿠폰 false면 쿠폰→프로모션
         int shippingFee = nz(form.getShippingFee());
         int freeShip = nz(form.getFreeShippingThreshold());
 
-        int thAmount = nz(form.getThresholdAmount());
-        int thOff = nz(form.getThresholdOff());
+        // 금액대 할인: 기본 조건 + 추가 구간을 정렬/정리
+        long[][] tiers = OrderRules.tiers(nz(form.getThresholdAmount()), nz(form.getThresholdOff()), form.getPromoTiers());
+
+        int maxOrders = maxOrders(form.getMaxOrders());
+        // 2주문 분할에서 한 상품 라인의 수량을 두 주문에 나눠 담을지. 미입력이면 설정값
+        boolean splitQuantities = form.getSplitQuantities() != null
+                ? form.getSplitQuantities()
+                : properties.getSplit().isSplitQuantities();
+        // 대안 전략 수. 미입력이면 설정값
+        int alternatives = Math.max(0, Math.min(MAX_ALTERNATIVES,
+                form.getAlternatives() != null ? form.getAlternatives() : properties.getSplit().getAlternatives()));
+
+        Cart cart = new Cart(inputs, tiers, promoBeforeCoupon, shippingFee, freeShip, maxOrders, splitQuantities,
+                alternatives, keyed);
+        metrics.stage(DiscountMetrics.Stage.SANITIZE, cart.inputs.products(), start);
+        return cart;
+    }
+
+    /*
+     * 계산 결과의 상품/쿠폰 위치는 CartFingerprint 정렬 순위(캐시 공용)이므로 이 요청의 form 위치로 옮긴다.
+     * 캐시된 객체는 여러 요청이 공유하므로 주문 구성만 새로 만들고 나머지 값은 그대로 쓴다.
+     */
+    private DiscountResult forRequest(DiscountResult result, Cart cart) {
+        StrategyPlan single = remap(result.getSingleOrder(), cart.productIndex, cart.couponIndex);
+        StrategyPlan two = remap(result.getTwoOrders(), cart.productIndex, cart.couponIndex);
+        StrategyPlan many = remap(result.getManyOrders(), cart.productIndex, cart.couponIndex);
+        // 3건 이상 분할은 가장 앞 상품 순으로 표시
+        many.getOrders().sort(Comparator.comparingInt(o -> o.getItemIndices()[0]));
+
+        StrategyPlan chosen = result.getOrderCount() == 1 ? single : result.getOrderCount() == 2 ? two : many;
+        return result.toBuilder()
+                .orders(chosen.getOrders())
+                .singleOrder(single)
+                .twoOrders(two)
+                .manyOrders(many)
+                .alternatives(remap(result.getAlternatives(), cart.productIndex, cart.couponIndex))
+                .withoutCoupons(remapWithout(result.getWithoutCoupons(), cart.productIndex, cart.couponIndex))
+                .build();
+    }
+
+    private List<StrategyPlan> remap(List<StrategyPlan> plans, int[] productMap, int[] couponMap) {
+        List<StrategyPlan> out = new ArrayList<>(plans.size());
+        for (StrategyPlan plan : plans) out.add(remap(plan, productMap, couponMap));
+        return out;
+    }
+
+    private List<CouponAlternative> remapWithout(List<CouponAlternative> without, int[] productMap, int[] couponMap) {
+        List<CouponAlternative> out = new ArrayList<>(without.size());
+        for (CouponAlternative w : without) {
+            out.add(CouponAlternative.builder()
+                    .couponIndex(couponMap[w.getCouponIndex()])
+                    .plan(remap(w.getPlan(), productMap, couponMap))
+                    .build());
+        }
+        // 쿠폰 위치 순 (추천 주문 순서와 무관)
+        out.sort(Comparator.comparingInt(CouponAlternative::getCouponIndex));
+        return out;
+    }
+
+    // 주문별 상품/쿠폰 위치를 productMap/couponMap으로 옮긴 복사본
+    private StrategyPlan remap(StrategyPlan plan, int[] productMap, int[] couponMap) {
+        List<OrderPlan> orders = new ArrayList<>(plan.getOrders().size());
+        for (OrderPlan o : plan.getOrders()) {
+            int[] items = new int[o.getItemIndices().length];
+            int[] quantities = o.getQuantities() == null ? null : new int[items.length];
+            if (quantities == null) {
+                for (int i = 0; i < items.length; i++) {
+                    items[i] = productMap[o.getItemIndices()[i]];
+                }
+                Arrays.sort(items);
+            } else {
+                // 수량은 상품 위치와 함께 정렬 (위치 << 32 | 수량)
+                long[] pairs = new long[items.length];
+                for (int i = 0; i < items.length; i++) {
+                    pairs[i] = (long) productMap[o.getItemIndices()[i]] << 32 | o.getQuantities()[i];
+                }
+                Arrays.sort(pairs);
+                for (int i = 0; i < items.length; i++) {
+                    items[i] = (int) (pairs[i] >>> 32);
+                    quantities[i] = (int) pairs[i];
+                }
+            }
+            int coupon = o.getCouponIndex() < 0 ? -1 : couponMap[o.getCouponIndex()];
+            orders.add(o.toBuilder().itemIndices(items).quantities(quantities).couponIndex(coupon).build());
+        }
+        return plan.toBuilder().orders(orders).build();
+    }
+
+    /*
+     * pre: 세션에서 이어받은 사전 계산 (null이면 새로 만든다)
+     * snapshot: 세션 상태. 이전 최적 분할을 첫 답 후보로 쓰고, 이번 최적 분할을 남긴다 (null이면 세션 아님)
+     * progress: 전략 하나를 끝낼 때마다 중간 결과(남은 전략은 TIMED_OUT)를 받는다 (null이면 알리지 않음)
+     * firstOnly: 1주문 최적까지만 계산하고 중간 결과를 돌려준다
+     * deadline: 지나면 분할 탐색을 멈추고 그때까지의 최선(첫 답 포함)을 best-effort로 돌려준다
+     */
+    private DiscountResult calculate(Cart cart, Precomputed pre, Snapshot snapshot,
+                                     Consumer<DiscountResult> progress, boolean firstOnly, Deadline deadline) {
+        CartInputs inputs = cart.inputs;
+        int maxOrders = cart.maxOrders;
+        int n = inputs.products();
+
+        // 라인별 금액과 주문 단위 할인 규칙은 요청당 한 번만 만든다
+        long start = System.nanoTime();
+        if (pre == null) pre = precompute(inputs);
+        // 쿠폰 배치 경우: 0번은 미사용, 같은 쿠폰은 두 주문에 동시에 쓸 수 없음
+        boolean[][] conflict = conflictMatrix(inputs);
+        OrderRules rules = new OrderRules(inputs.couponRule, cart.tiers, cart.promoBeforeCoupon,
+                cart.shippingFee, cart.freeShip);
+        // 대안 전략: 1주문/2주문 탐색이 평가한 후보를 전략(주문 수 + 쿠폰)별로 함께 기록
+        PlanRanking ranking = cart.alternatives > 0 ? new PlanRanking(rules.options(), cart.alternatives, conflict) : null;
+
+        metrics.stage(DiscountMetrics.Stage.BASELINE, n, start);
+
+        // 1) 한 번에 구매(1주문): 쿠폰 0~1개 중 최적
+        start = System.nanoTime();
+        StrategyPlan bestSingle = bestForOneOrder(pre, rules, ranking);
+        metrics.stage(DiscountMetrics.Stage.SINGLE, n, start);
+
+        // 아직 탐색하지 않은 분할 전략은 TIMED_OUT (중간 결과용)
+        StrategyPlan bestSplit = notFound(maxOrders >= 2 ? PlanStatus.TIMED_OUT : PlanStatus.NOT_REQUESTED);
+        StrategyPlan bestPartition = notFound(maxOrders >= 3 ? PlanStatus.TIMED_OUT : PlanStatus.NOT_REQUESTED);
+
+        // 2) 두 번으로 나눠 구매(2주문): 상품 라인 단위 분할
+        if (maxOrders >= 2) {
+            if (firstOnly) return result(cart, pre, rules, ranking, bestSingle, bestSplit, bestPartition);
+            if (progress != null) progress.accept(result(cart, pre, rules, ranking, bestSingle, bestSplit, bestPartition));
+
+            start = System.nanoTime();
+            // 대안 전략은 탐색 중 후보를 모아야 하므로 세션에 남긴 분할을 그대로 쓰지 않는다
+            SplitCandidate kept = snapshot == null || ranking != null ? null : snapshot.keptSplit(cart, useExhaustive(n));
+            if (kept != null) {
+                bestSplit = splitPlan(pre, rules, kept.mask, kept.optionA, kept.optionB, Long.MAX_VALUE);
+            } else {
+                long hint = snapshot == null ? 0 : snapshot.splitMask;
+                bestSplit = bestForTwoOrders(n, pre, rules, conflict, hint, deadline, ranking);
+            }
+            // 세션에는 라인 단위 최적을 남긴다 (수량 단위 분할은 매번 그 위에서 탐색)
+            if (snapshot != null) snapshot.record(cart, pre, bestSplit, useExhaustive(n));
+            if (cart.splitQuantities) bestSplit = quantitySplit(inputs, pre, rules, conflict, bestSplit, deadline);
+            metrics.stage(DiscountMetrics.Stage.SPLIT, n, start);
+        }
+
+        // 3) 세 번 이상 나눠 구매(3~K주문): 요청한 경우에만 (시간 예산이 남아 있을 때)
+        if (maxOrders >= 3 && !deadline.passed()) {
+            if (progress != null) progress.accept(result(cart, pre, rules, ranking, bestSingle, bestSplit, bestPartition));
+
+            start = System.nanoTime();
+            bestPartition = bestForManyOrders(n, pre, rules, conflict, maxOrders, deadline);
+            metrics.stage(DiscountMetrics.Stage.PARTITION, n, start);
+        }
+
+        return result(cart, pre, rules, ranking, bestSingle, bestSplit, bestPartition);
+    }
+
+    // 전략별 최적에서 추천 전략을 고르고 절감액/하한을 계산한다
+    private DiscountResult result(Cart cart, Precomputed pre, OrderRules rules, PlanRanking ranking,
+                                  StrategyPlan bestSingle, StrategyPlan bestSplit, StrategyPlan bestPartition) {
+        int maxOrders = cart.maxOrders;
 
         // 1) 상품 자체 할인 적용 후 금액을 기준으로 사용
-        long baselineMerch = applyProductDiscounts(products);
+        long baselineMerch = pre.totalMerch();
         // 2) 무료배송 기준도 동일 정책으로 판단
-        long baselineShipping = (freeShip > 0 && baselineMerch >= freeShip) ? 0 : shippingFee;
+        long baselineShipping = rules.shipping(baselineMerch);
         // 기준 결제 금액
         long baselinePay = baselineMerch + baselineShipping;
 
-        // 1) 한 번에 구매(1주문): 쿠폰 0~1개 중 최적
-        OrderCalc bestSingle = bestForOneOrder(products, coupons, thAmount, thOff, promoBeforeCoupon, shippingFee, freeShip);
-        // 2) 두 번으로 나눠 구매(2주문): 상품 라인 단위 분할(최대 5개 → 32개)
-        SplitCalc bestSplit = bestForTwoOrders(products, coupons, thAmount, thOff, promoBeforeCoupon, shippingFee, freeShip);
+        // 최종 전략 선택 (금액이 같으면 주문 수가 적은 쪽)
+        int orderCount = 1;
+        long finalPay = bestSingle.getTotalPay();
+        if (found(bestSplit) && bestSplit.getTotalPay() < finalPay) {
+            orderCount = 2;
+            finalPay = bestSplit.getTotalPay();
+        }
+        if (found(bestPartition) && bestPartition.getTotalPay() < finalPay) {
+            orderCount = bestPartition.getOrders().size();
+            finalPay = bestPartition.getTotalPay();
+        }
 
-        // 최종 전략 선택
-        boolean splitIsBetter = bestSplit.totalPay < bestSingle.totalPay;
-        long finalPay = splitIsBetter ? bestSplit.totalPay : bestSingle.totalPay;
+        // 근사 탐색이었다면 더 싼 분할이 있을 수 있음: 하한과의 차이를 보고
+        long lowerBound = bestSingle.getLowerBound();
+        if (found(bestSplit)) lowerBound = Math.min(lowerBound, bestSplit.getLowerBound());
+        if (found(bestPartition)) lowerBound = Math.min(lowerBound, bestPartition.getLowerBound());
+        // 탐색을 마치지 못한 전략이 있으면 어떤 분할로도 넘을 수 없는 하한까지 고려
+        if (bestSplit.getStatus() == PlanStatus.TIMED_OUT || bestPartition.getStatus() == PlanStatus.TIMED_OUT) {
+            lowerBound = Math.min(lowerBound, rules.planLowerBound(pre.totalMerch(), maxOrders));
+        }
+        long gap = finalPay - lowerBound;
+        boolean bestEffort = bestSplit.getStatus() == PlanStatus.TIMED_OUT || bestSplit.isPartial()
+                || bestPartition.getStatus() == PlanStatus.TIMED_OUT;
 
         long saved = baselinePay - finalPay;
         double rate = baselinePay == 0 ? 0 : saved * 100.0 / baselinePay;
 
-        String summary = splitIsBetter
-                ? String.format("✅ 추천: 2번으로 나눠 구매 (%,d원 절감)", saved)
-                : String.format("✅ 추천: 1번에 구매 (%,d원 절감)", saved);
-
-        String detail = buildDetail(products, coupons, thAmount, thOff, promoBeforeCoupon, shippingFee, freeShip,
-                baselinePay, bestSingle, bestSplit, splitIsBetter);
+        StrategyPlan chosen = orderCount == 1 ? bestSingle : orderCount == 2 ? bestSplit : bestPartition;
+        Alternatives alternatives = alternatives(pre, rules, ranking, chosen, bestSplit, bestPartition);
 
+        // 캐시에는 정렬 순위 기준 위치로 저장 (요청별 위치는 forRequest에서)
         return DiscountResult.builder()
                 .baseMerchandise(baselineMerch)
                 .baseShipping(baselineShipping)
@@ -58,385 +356,952 @@ public class DiscountCalculatorService {
                 .finalPay(finalPay)
                 .totalSaved(saved)
                 .savedRate(round2(rate))
-                .summary(summary)
-                .detail(detail)
+                .optimal(gap == 0)
+                .optimalityGap(gap)
+                .bestEffort(bestEffort)
+                .orderCount(orderCount)
+                .maxOrders(maxOrders)
+                .singleOrder(remap(bestSingle, cart.productRank, cart.couponRank))
+                .twoOrders(remap(bestSplit, cart.productRank, cart.couponRank))
+                .manyOrders(remap(bestPartition, cart.productRank, cart.couponRank))
+                .alternatives(remap(alternatives.top, cart.productRank, cart.couponRank))
+                .withoutCoupons(remapWithout(alternatives.without, cart.productRank, cart.couponRank))
                 .build();
     }
 
+    /*
+     * 대안 전략: 탐색이 기록한 전략(주문 수 + 사용 쿠폰)별 최적 + 3주문 이상 최적에서
+     * - top: 추천과 전략이 다른 가장 싼 K개 (금액, 주문 수 순)
+     * - without: 추천이 쓴 쿠폰마다 그 쿠폰(같은 쿠폰 포함) 없이 가장 싼 전략
+     * 최적 분할과 같은 평가에서 모았으므로 다시 탐색하지 않고, 고른 것만 주문별 금액을 만든다.
+     * 2주문 대안은 라인 단위이고, 분할 탐색이 근사/중단이면 그때까지 찾은 값이다 (partial)
+     */
+    private Alternatives alternatives(Precomputed pre, OrderRules rules, PlanRanking ranking,
+                                      StrategyPlan chosen, StrategyPlan bestSplit, StrategyPlan bestPartition) {
+        if (ranking == null) return Alternatives.NONE;
+
+        // 후보: 표의 칸 번호(3주문 이상 최적은 -1)
+        List<Integer> slots = new ArrayList<>();
+        for (int s = 0; s < ranking.total.length; s++) {
+            if (ranking.total[s] != Long.MAX_VALUE) slots.add(s);
+        }
+        if (found(bestPartition)) slots.add(-1);
+        slots.sort(Comparator.<Integer>comparingLong(s -> s < 0 ? bestPartition.getTotalPay() : ranking.total[s])
+                .thenComparingInt(s -> s < 0 ? bestPartition.getOrders().size() : ranking.isPair(s) ? 2 : 1)
+                .thenComparingInt(s -> s < 0 ? Integer.MAX_VALUE : s));
+
+        boolean partialSplit = bestSplit.getStatus() == PlanStatus.TIMED_OUT || bestSplit.isPartial()
+                || bestSplit.getLowerBound() < bestSplit.getTotalPay();
+        Set<String> seen = new HashSet<>();
+        seen.add(signature(ranking, chosen.getOrders().size(), chosen.getOrders()));
+        List<StrategyPlan> top = new ArrayList<>();
+        for (int s : slots) {
+            if (top.size() == ranking.top()) break;
+            List<OrderPlan> orders = s < 0 ? bestPartition.getOrders() : null;
+            int count = s < 0 ? orders.size() : ranking.isPair(s) ? 2 : 1;
+            if (!seen.add(s < 0 ? signature(ranking, count, orders) : ranking.signature(s))) continue;
+            top.add(s < 0 ? bestPartition : slotPlan(pre, rules, ranking, s, partialSplit));
+        }
+
+        List<CouponAlternative> without = new ArrayList<>();
+        Set<Integer> done = new HashSet<>();
+        for (OrderPlan o : chosen.getOrders()) {
+            int x = o.getCouponIndex() + 1;
+            if (x == 0 || !done.add(ranking.group(x))) continue;
+            for (int s : slots) {
+                if (s < 0 ? usesCoupon(ranking, bestPartition, x) : ranking.uses(s, x)) continue;
+                StrategyPlan plan = s < 0 ? bestPartition : slotPlan(pre, rules, ranking, s, partialSplit);
+                without.add(CouponAlternative.builder().couponIndex(x - 1).plan(plan).build());
+                break;
+            }
+        }
+        return new Alternatives(top, without);
+    }
+
+    // 표의 칸 1개 → 전략 (1주문: 쿠폰 option, 2주문: 남긴 분할)
+    private StrategyPlan slotPlan(Precomputed pre, OrderRules rules, PlanRanking ranking, int s, boolean partial) {
+        if (!ranking.isPair(s)) {
+            long total = ranking.total[s];
+            return found(total, total, List.of(calcOrder(pre, rules, pre.fullMask(), ranking.optionA[s])));
+        }
+        StrategyPlan plan = splitPlan(pre, rules, ranking.mask[s], ranking.optionA[s], ranking.optionB[s], ranking.total[s]);
+        return partial ? plan.toBuilder().partial(true).build() : plan;
+    }
+
+    private boolean usesCoupon(PlanRanking ranking, StrategyPlan plan, int x) {
+        for (OrderPlan o : plan.getOrders()) {
+            if (ranking.usesOption(o.getCouponIndex() + 1, x)) return true;
+        }
+        return false;
+    }
+
+    // 주문 수 + 사용 쿠폰(같은 쿠폰은 한 묶음)
+    private String signature(PlanRanking ranking, int orders, List<OrderPlan> plan) {
+        int[] options = new int[plan.size()];
+        for (int i = 0; i < options.length; i++) options[i] = plan.get(i).getCouponIndex() + 1;
+        return ranking.signature(orders, options);
+    }
+
+    private boolean found(StrategyPlan plan) {
+        return plan.getStatus() == PlanStatus.FOUND;
+    }
+
+    private StrategyPlan notFound(PlanStatus status) {
+        return StrategyPlan.builder().status(status).orders(List.of()).build();
+    }
+
+    // 최대 주문 수: 미입력이면 2(1주문/2주문 비교), 설정 상한으로 제한
+    private int maxOrders(Integer requested) {
+        if (requested == null) return 2;
+        return Math.max(1, Math.min(requested, properties.getSplit().getMaxOrders()));
+    }
+
     /* ------------------------
        핵심 계산: 주문 1건 최적
        ------------------------ */
-    private OrderCalc bestForOneOrder(List<ProductItem> products, List<Coupon> coupons,
-                                      int thAmount, int thOff, boolean promoBeforeCoupon,
-                                      int shippingFee, int freeShip) {
-
-        List<Coupon> options = new ArrayList<>();
-        options.add(null); // 쿠폰 미사용
-        options.addAll(coupons);
-
-        OrderCalc best = null;
-        for (Coupon c : options) {
-            OrderCalc calc = calcOrder(products, c, thAmount, thOff, promoBeforeCoupon, shippingFee, freeShip);
-            if (best == null || calc.totalPay < best.totalPay) best = calc;
+    // ranking: 대안 표 (null이면 기록 안 함). 미사용보다 싼 쿠폰만 1주문 전략으로 기록
+    private StrategyPlan bestForOneOrder(Precomputed pre, OrderRules rules, PlanRanking ranking) {
+
+        // 후보 비교는 금액만으로 하고, 단계별 금액은 최적 후보에 대해서만 만든다 (0번 = 쿠폰 미사용)
+        long merch = pre.totalMerch();
+        int bestIdx = -1;
+        long bestTotal = Long.MAX_VALUE;
+        long noCoupon = rules.total(merch, 0);
+        for (int i = 0; i < rules.options(); i++) {
+            long total = rules.total(merch, i);
+            if (ranking != null && (i == 0 || total < noCoupon)) ranking.single(i, total, pre.fullMask());
+            if (bestIdx < 0 || total < bestTotal) {
+                bestIdx = i;
+                bestTotal = total;
+            }
         }
-        return best;
+        OrderPlan order = calcOrder(pre, rules, pre.fullMask(), bestIdx);
+        return found(order.getTotalPay(), order.getTotalPay(), List.of(order));
     }
 
     /* ------------------------
        핵심 계산: 주문 2건 최적
-       (라인 단위 분할: 2^N)
+       (라인 단위 분할)
        쿠폰은 주문당 1장, 쿠폰 1회성
        ------------------------ */
-    private SplitCalc bestForTwoOrders(List<ProductItem> products, List<Coupon> coupons,
-                                       int thAmount, int thOff, boolean promoBeforeCoupon,
-                                       int shippingFee, int freeShip) {
-
-        int n = products.size();
-        SplitCalc best = null;
+    // hint: 이전 계산의 최적 분할(A 주문 라인, 세션용). 0이면 없음
+    // ranking: 대안 표 (null이면 기록 안 함). 첫 답과 탐색에서 평가한 분할을 쿠폰 조합별로 기록
+    private StrategyPlan bestForTwoOrders(int n, Precomputed pre, OrderRules rules, boolean[][] conflict,
+                                          long hint, Deadline deadline, PlanRanking ranking) {
+
+        // 첫 답: 탐색 전에 만들어 시간 예산이 바로 끝나도 돌려줄 분할이 있게 한다
+        SplitCandidate first = greedySplit(pre, rules, conflict);
+        if (hint != 0 && hint != pre.fullMask()) {
+            long merchA = pre.merchOf(hint);
+            first = SplitCandidate.better(first, bestCoupons(rules, conflict, hint, merchA,
+                    pre.totalMerch() - merchA, new long[rules.options()]));
+        }
+        if (ranking != null && first != null) ranking.pair(first.total, first.mask, first.optionA, first.optionB);
 
-        // 쿠폰 배치 경우: (A에 null 포함) x (B에 null 포함, 단 A에 쓴 쿠폰 제외)
-        List<Coupon> couponOptions = new ArrayList<>();
-        couponOptions.add(null);
-        couponOptions.addAll(coupons);
+        // 쿠폰 배치 경우: (A에 미사용 포함) x (B에 미사용 포함, 단 A에 쓴 쿠폰 제외)
+        if (useExhaustive(n)) {
+            return exhaustiveSplit(n, pre, rules, conflict, first, deadline, ranking);
+        }
 
-        for (int mask = 0; mask < (1 << n); mask++) {
-            List<ProductItem> a = new ArrayList<>();
-            List<ProductItem> b = new ArrayList<>();
+        DiscountProperties.Split split = properties.getSplit();
+        SplitOptimizer optimizer = new SplitOptimizer(pre.lineDiscounted, rules, conflict,
+                split.getExactSumLimit(), split.getApproxSumLimit());
+        SplitOptimizer.Result r = optimizer.solve(first == null ? Long.MAX_VALUE : first.total, deadline, ranking);
+        metrics.splitSearch(false, optimizer.evaluated, optimizer.pruned);
+
+        SplitCandidate searched = r == null ? null : new SplitCandidate(r.totalPay, mask(r.linesA), r.optionA, r.optionB);
+        if (optimizer.timedOut) {
+            // 남은 구간 하한과 주문 규칙만으로 만든 분할 하한은 둘 다 성립하므로 큰 쪽
+            long lowerBound = rules.planLowerBound(pre.totalMerch(), 2);
+            if (r != null) lowerBound = Math.max(lowerBound, r.lowerBound);
+            return partialSplit(pre, rules, searched, first, lowerBound);
+        }
+        if (r == null) return notFound(PlanStatus.NO_CANDIDATE);
+        // 근사 탐색은 첫 답보다 비쌀 수 있다 (같은 금액이면 탐색 결과)
+        SplitCandidate best = SplitCandidate.better(searched, first);
+        return splitPlan(pre, rules, best.mask, best.optionA, best.optionB, r.lowerBound);
+    }
 
-            for (int i = 0; i < n; i++) {
-                if ((mask & (1 << i)) != 0) a.add(products.get(i));
-                else b.add(products.get(i));
+    /*
+     * 분할 첫 답: 상품할인 후 금액이 큰 라인부터 A에 하나씩 더한 분할 + 라인 1개만 A인 분할 중 최선 (O(N x 쿠폰^2)).
+     * 탐색은 하한이 이 금액보다 "큰" 구간만 건너뛰므로(같은 금액은 탐색) 끝까지 탐색하면 결과가 그대로이고,
+     * 시간 예산으로 멈춰도 이보다 비싼 분할은 돌려주지 않는다.
+     */
+    private SplitCandidate greedySplit(Precomputed pre, OrderRules rules, boolean[][] conflict) {
+        long[] lines = pre.lineDiscounted;
+        int n = lines.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> Long.compare(lines[y], lines[x]));
+
+        long total = pre.totalMerch();
+        long[] totalB = new long[rules.options()];
+        SplitCandidate best = null;
+        long prefixMask = 0, prefixMerch = 0;
+        for (int k = 0; k + 1 < n; k++) {
+            int i = order[k];
+            prefixMask |= 1L << i;
+            prefixMerch += lines[i];
+            best = SplitCandidate.better(best, bestCoupons(rules, conflict, prefixMask, prefixMerch, total - prefixMerch, totalB));
+            if (k > 0) {
+                best = SplitCandidate.better(best, bestCoupons(rules, conflict, 1L << i, lines[i], total - lines[i], totalB));
             }
+        }
+        return best;
+    }
 
-            // 둘 중 하나가 비면 '나눠 사기' 의미가 약하니 제외
-            if (a.isEmpty() || b.isEmpty()) continue;
-
-            for (Coupon ca : couponOptions) {
-                for (Coupon cb : couponOptions) {
-                    if (ca != null && cb != null && sameCoupon(ca, cb)) continue;
-
-                    OrderCalc orderA = calcOrder(a, ca, thAmount, thOff, promoBeforeCoupon, shippingFee, freeShip);
-                    OrderCalc orderB = calcOrder(b, cb, thAmount, thOff, promoBeforeCoupon, shippingFee, freeShip);
-
-                    long total = orderA.totalPay + orderB.totalPay;
-                    
-                    String itemsA = itemsLabel(a);
-                    String itemsB = itemsLabel(b);
-
-                    String caLabel = couponLabel(ca);
-                    String cbLabel = couponLabel(cb);
-                    
-                    String binary = toBinaryMask(mask, n);
-
-                    String namesA = simpleItemNames(a);
-                    String namesB = simpleItemNames(b);
-                    
-                    // mask 및 구성 정보까지 plan에 포함
-                    String plan = ""
-                            + String.format("mask=%s (A=[%s], B=[%s])\n", binary, namesA, namesB)
-                            + String.format("쿠폰 배치 → A: %s | B: %s\n\n", caLabel, cbLabel)
-                            + "──── 주문 A 상세 ────\n"
-                            + orderA.detail + "\n\n"
-                            + "──── 주문 B 상세 ────\n"
-                            + orderB.detail;
-
-                    SplitCalc candidate = new SplitCalc(total, plan, mask, caLabel, cbLabel, itemsA, itemsB);
-
-                    if (best == null || candidate.totalPay < best.totalPay) best = candidate;
+    // 상품 구성이 정해진 분할의 최적 쿠폰 배치 (같은 쿠폰은 한 주문에만)
+    private static SplitCandidate bestCoupons(OrderRules rules, boolean[][] conflict,
+                                              long mask, long merchA, long merchB, long[] totalB) {
+        int m = rules.options();
+        for (int ib = 0; ib < m; ib++) {
+            totalB[ib] = rules.total(merchB, ib);
+        }
+        int bestA = -1, bestB = -1;
+        long bestTotal = Long.MAX_VALUE;
+        for (int ia = 0; ia < m; ia++) {
+            long totalA = rules.total(merchA, ia);
+            for (int ib = 0; ib < m; ib++) {
+                if (conflict[ia][ib]) continue;
+                if (bestA < 0 || totalA + totalB[ib] < bestTotal) {
+                    bestTotal = totalA + totalB[ib];
+                    bestA = ia;
+                    bestB = ib;
                 }
             }
         }
+        return new SplitCandidate(bestTotal, mask, bestA, bestB);
+    }
 
-        // 분할이 불가능하거나(상품 1종 등) 전부 제외된 경우
-        if (best == null) {
-            best = new SplitCalc(
-                    Long.MAX_VALUE / 4,
-                    "나눠 구매 후보 없음(상품이 1종이거나 분할 조건 제외).",
-                    -1, "N/A", "N/A", "(없음)", "(없음)"
-            );
+    /*
+     * 수량 단위 분할: 라인을 수량 단위 품목(QuantitySplit)으로 나눠 같은 부분합 탐색을 돌린다.
+     * 라인 단위 분할도 품목 조합 중 하나이므로 라인 단위 최적(whole)을 첫 답으로 두고, 더 싼 분할이 있을 때만 바꾼다.
+     * 하한은 더 넓어진 탐색 공간 기준으로 다시 잡는다.
+     * 품목으로 나타낼 수 없는 분할(QuantitySplit.complete)이 있으면 조합 수가 작을 때는 수량 조합을 전부 보고,
+     * 아니면 품목 탐색 결과에 그 분할까지 포함한 하한을 함께 보고한다 (증명하지 못하면 optimal=false).
+     */
+    private StrategyPlan quantitySplit(CartInputs inputs, Precomputed pre, OrderRules rules,
+                                       boolean[][] conflict, StrategyPlan whole, Deadline deadline) {
+        QuantitySplit units = QuantitySplit.of(inputs);
+        if (!units.complete && units.cuts(QUANTITY_ENUMERATION_LIMIT) <= QUANTITY_ENUMERATION_LIMIT) {
+            return quantityEnumeration(inputs, rules, conflict, units, whole, deadline);
         }
-        return best;
+        long uncovered = units.complete ? Long.MAX_VALUE : rules.planLowerBound(units.minTotal, units.maxTotal, 2);
+        if (!units.splitsLines()) {
+            // 수량 2개 이상인 라인이 없으면 라인 단위 분할과 같다
+            if (units.complete) return whole;
+            // 라인 1개를 단위 중간에서만 나눌 수 있고 조합이 너무 많음: 탐색 생략
+            if (!found(whole)) return notFound(PlanStatus.TOO_MANY_PRODUCTS);
+            return keptWhole(whole, Math.min(whole.getLowerBound(), uncovered), false);
+        }
+        if (units.weights.length > SplitOptimizer.MAX_LINES || deadline.passed()) {
+            return keptWhole(whole, Math.min(rules.planLowerBound(pre.totalMerch(), 2), uncovered), true);
+        }
+
+        DiscountProperties.Split split = properties.getSplit();
+        SplitOptimizer optimizer = new SplitOptimizer(units.weights, rules, conflict,
+                split.getExactSumLimit(), split.getApproxSumLimit());
+        SplitOptimizer.Result r = optimizer.solve(found(whole) ? whole.getTotalPay() : Long.MAX_VALUE, deadline);
+        metrics.splitSearch(false, optimizer.evaluated, optimizer.pruned);
+
+        long lowerBound;
+        if (optimizer.timedOut) {
+            lowerBound = rules.planLowerBound(pre.totalMerch(), 2);
+            if (r != null) lowerBound = Math.max(lowerBound, r.lowerBound);
+        } else {
+            lowerBound = r != null ? r.lowerBound : whole.getLowerBound();
+        }
+        lowerBound = Math.min(lowerBound, uncovered);
+        if (r == null || (found(whole) && r.totalPay >= whole.getTotalPay())) {
+            return keptWhole(whole, lowerBound, optimizer.timedOut);
+        }
+        return quantityPlan(inputs, rules, units, units.quantitiesA(r.linesA), r.optionA, r.optionB,
+                lowerBound, optimizer.timedOut);
     }
 
-    private boolean sameCoupon(Coupon a, Coupon b) {
-    	// '쿠폰이 같은지' 판별 기준은 name
-        // name이 없으면 객체 동일성으로
-        if (a.getName() != null && b.getName() != null) return a.getName().equals(b.getName());
-        return a == b;
+    /*
+     * 수량 완전 탐색: 라인마다 A 주문 수량 0~수량 전부의 조합 (두 주문 모두 1개 이상).
+     * 주문 금액을 실제 수량으로 매기므로 품목으로 나타낼 수 없는 분할까지 포함한 정확한 최적이다.
+     */
+    private StrategyPlan quantityEnumeration(CartInputs inputs, OrderRules rules, boolean[][] conflict,
+                                             QuantitySplit units, StrategyPlan whole, Deadline deadline) {
+        int n = units.quantity.length;
+        int m = conflict.length;
+        long[] costA = new long[m];
+        long[] costB = new long[m];
+        int[] qtyA = new int[n];
+        int[] bestQty = null;
+        int bestA = 0, bestB = 0;
+        long bestTotal = found(whole) ? whole.getTotalPay() : Long.MAX_VALUE;
+        long evaluated = 0;
+        boolean timedOut = false;
+
+        while (true) {
+            // 다음 조합 (라인 0부터 자리올림). 전부 돌았으면 끝
+            int i = 0;
+            while (i < n && qtyA[i] == units.quantity[i]) qtyA[i++] = 0;
+            if (i == n) break;
+            qtyA[i]++;
+
+            long merchA = 0, merchB = 0;
+            int countA = 0, countB = 0;
+            for (int k = 0; k < n; k++) {
+                int qtyB = units.quantity[k] - qtyA[k];
+                merchA += inputs.discount[k].apply(inputs.price[k], qtyA[k]);
+                merchB += inputs.discount[k].apply(inputs.price[k], qtyB);
+                countA += qtyA[k];
+                countB += qtyB;
+            }
+            if (countA == 0 || countB == 0) continue;
+            if ((++evaluated & 1023) == 0 && deadline.passed()) {
+                timedOut = true;
+                break;
+            }
+
+            for (int c = 0; c < m; c++) {
+                costA[c] = rules.total(merchA, c);
+                costB[c] = rules.total(merchB, c);
+            }
+            for (int a = 0; a < m; a++) {
+                for (int b = 0; b < m; b++) {
+                    if (conflict[a][b] || costA[a] + costB[b] >= bestTotal) continue;
+                    bestTotal = costA[a] + costB[b];
+                    bestQty = qtyA.clone();
+                    bestA = a;
+                    bestB = b;
+                }
+            }
+        }
+        metrics.splitSearch(true, evaluated, 0);
+
+        // 다 봤으면 찾은 최선(없으면 라인 단위 최적)이 수량 분할 전체의 최적
+        long lowerBound = timedOut ? rules.planLowerBound(units.minTotal, units.maxTotal, 2) : bestTotal;
+        if (bestQty == null) return keptWhole(whole, lowerBound, timedOut);
+        return quantityPlan(inputs, rules, units, bestQty, bestA, bestB, lowerBound, timedOut);
+    }
+
+    // 라인별 A 수량으로 두 주문을 만든다 (B는 나머지 수량)
+    private StrategyPlan quantityPlan(CartInputs inputs, OrderRules rules, QuantitySplit units, int[] qtyA,
+                                      int optionA, int optionB, long lowerBound, boolean partial) {
+        int[] qtyB = new int[qtyA.length];
+        for (int i = 0; i < qtyA.length; i++) qtyB[i] = units.quantity[i] - qtyA[i];
+        OrderPlan orderA = calcOrder(inputs, rules, qtyA, optionA);
+        OrderPlan orderB = calcOrder(inputs, rules, qtyB, optionB);
+        return found(orderA.getTotalPay() + orderB.getTotalPay(), lowerBound, List.of(orderA, orderB)).toBuilder()
+                .partial(partial)
+                .build();
+    }
+
+    // 수량 단위 탐색이 라인 단위 최적보다 싼 분할을 찾지 못함: 라인 단위 결과에 하한만 고친다
+    private StrategyPlan keptWhole(StrategyPlan whole, long lowerBound, boolean timedOut) {
+        if (!found(whole)) return timedOut ? notFound(PlanStatus.TIMED_OUT) : whole;
+        return whole.toBuilder()
+                .lowerBound(Math.min(lowerBound, whole.getTotalPay()))
+                .partial(whole.isPartial() || timedOut)
+                .build();
+    }
+
+    // 시간 예산으로 멈춘 분할 탐색: 그때까지의 최선과 첫 답 중 싼 쪽
+    private StrategyPlan partialSplit(Precomputed pre, OrderRules rules, SplitCandidate searched,
+                                      SplitCandidate first, long lowerBound) {
+        SplitCandidate best = SplitCandidate.better(searched, first);
+        if (best == null) return notFound(PlanStatus.TIMED_OUT);
+        return splitPlan(pre, rules, best.mask, best.optionA, best.optionB, lowerBound).toBuilder()
+                .partial(true)
+                .build();
     }
 
     /* ------------------------
-       주문 1건 계산 파이프라인
-       - 상품 자체 할인(라인별)
-       - 프로모션(금액대)
-       - 쿠폰(1장)
-       - 배송(무료배송 조건)
+       핵심 계산: 주문 3~K건 최적
+       (라인 단위 분할, 부분집합 DP)
        ------------------------ */
-    private OrderCalc calcOrder(List<ProductItem> products, Coupon coupon,
-                                int thAmount, int thOff, boolean promoBeforeCoupon,
-                                int shippingFee, int freeShip) {
+    private StrategyPlan bestForManyOrders(int n, Precomputed pre, OrderRules rules,
+                                           boolean[][] conflict, int maxOrders, Deadline deadline) {
 
-        long base = productsBase(products);
+        if (n > partitionLimit()) return notFound(PlanStatus.TOO_MANY_PRODUCTS);
 
-        // 1) 상품 자체 할인 적용 후 금액
-        long afterProductDiscount = applyProductDiscounts(products);
+        PartitionSolver solver = new PartitionSolver(pre.lineDiscounted, rules, conflict, 3, maxOrders);
+        PartitionSolver.Result r = solver.solve(deadline);
+        if (solver.timedOut) return notFound(PlanStatus.TIMED_OUT);
+        if (r == null) return notFound(PlanStatus.NO_CANDIDATE);
+        return partitionPlan(pre, rules, r);
+    }
 
-        long amount = afterProductDiscount;
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("상품합계(할인전): %,d원\n", base));
-        sb.append(String.format("상품할인 적용 후: %,d원\n", afterProductDiscount));
+    // 3건 이상 분할 탐색 상품 수 상한
+    private int partitionLimit() {
+        return Math.min(properties.getSplit().getPartitionMaxProducts(), PARTITION_LIMIT);
+    }
 
-        // 2) 프로모션/쿠폰 순서
-        if (promoBeforeCoupon) {
-            long beforePromo = amount;
-            amount = applyThresholdPromo(amount, thAmount, thOff);
-            sb.append(String.format("금액대할인: %,d원 → %,d원\n", beforePromo, amount));
+    // 같은 쿠폰 여부는 루프 밖에서 한 번만 판별 (쿠폰 선택지: 0번은 미사용)
+    private boolean[][] conflictMatrix(CartInputs inputs) {
+        int m = inputs.coupons() + 1;
+        boolean[][] conflict = new boolean[m][m];
+        for (int ia = 1; ia < m; ia++) {
+            for (int ib = 1; ib < m; ib++) {
+                conflict[ia][ib] = inputs.sameCoupon(ia - 1, ib - 1);
+            }
+        }
+        return conflict;
+    }
+
+    private boolean useExhaustive(int n) {
+        DiscountProperties.Split split = properties.getSplit();
+        switch (split.getEngine()) {
+            case EXHAUSTIVE:
+                if (n > EXHAUSTIVE_LIMIT) {
+                    throw new IllegalStateException("완전 탐색 엔진은 상품 " + EXHAUSTIVE_LIMIT + "개까지만 지원합니다.");
+                }
+                return true;
+            case OPTIMIZED:
+                return false;
+            default:
+                return n <= Math.min(split.getExhaustiveMaxProducts(), EXHAUSTIVE_LIMIT);
+        }
+    }
+
+    private boolean useParallel(int n) {
+        DiscountProperties.Split split = properties.getSplit();
+        return split.isParallel() && n >= split.getParallelMinProducts();
+    }
 
-            long beforeCoupon = amount;
-            amount = applyCoupon(amount, coupon);
-            sb.append(String.format("쿠폰(%s): %,d원 → %,d원\n", couponLabel(coupon), beforeCoupon, amount));
+    // 기준 구현: 2^(N-1) x 쿠폰^2 완전 탐색 (작은 장바구니 및 교차 검증용)
+    private StrategyPlan exhaustiveSplit(int n, Precomputed pre, OrderRules rules, boolean[][] conflict,
+                                         SplitCandidate first, Deadline deadline, PlanRanking ranking) {
+
+        int full = (1 << n) - 1;
+        MaskSearch search = new MaskSearch(pre.maskMerch(), full, rules, conflict,
+                first == null ? Long.MAX_VALUE : first.total, deadline, ranking);
+
+        // 둘 중 하나가 비면 '나눠 사기' 의미가 약하니 mask=0, mask=full은 제외.
+        // mask와 full ^ mask는 A/B만 바꾼 같은 분할이고 쿠폰은 양쪽 배치를 모두 보므로, 마지막 라인이 B인 절반만 본다.
+        // 그러면 (라인 집합, 쿠폰) 주문 금액을 한 번씩만 계산한다. 같은 금액이면 작은 mask를 남기므로 결과도 같다
+        int half = 1 << (n - 1);
+        SplitCandidate best;
+        if (useParallel(n)) {
+            // 작업 수가 풀 크기의 몇 배가 되도록 구간을 나눈다
+            int leaf = Math.max(PARALLEL_LEAF_MIN, half / (splitSearchPool.getParallelism() * 4));
+            best = splitSearchPool.invoke(new MaskRangeTask(search, 1, half, leaf));
         } else {
-            long beforeCoupon = amount;
-            amount = applyCoupon(amount, coupon);
-            sb.append(String.format("쿠폰(%s): %,d원 → %,d원\n", couponLabel(coupon), beforeCoupon, amount));
+            best = search.scan(1, half);
+        }
+        metrics.splitSearch(true, search.evaluated.sum(), search.pruned.sum());
 
-            long beforePromo = amount;
-            amount = applyThresholdPromo(amount, thAmount, thOff);
-            sb.append(String.format("금액대할인: %,d원 → %,d원\n", beforePromo, amount));
+        if (search.timedOut) {
+            return partialSplit(pre, rules, best, first, rules.planLowerBound(pre.totalMerch(), 2));
         }
+        // 분할이 불가능하거나(상품 1종 등) 전부 제외된 경우
+        if (best == null) return notFound(PlanStatus.NO_CANDIDATE);
+        return splitPlan(pre, rules, best.mask, best.optionA, best.optionB, best.total);
+    }
 
-        // 3) 배송비 (여기서는 “할인 적용 후 금액” 기준으로 무료배송 판단)
-        long merchFinal = amount;
-        long ship = (freeShip > 0 && merchFinal >= freeShip) ? 0 : shippingFee;
+    private StrategyPlan found(long totalPay, long lowerBound, List<OrderPlan> orders) {
+        return StrategyPlan.builder()
+                .status(PlanStatus.FOUND)
+                .totalPay(totalPay)
+                .lowerBound(Math.min(lowerBound, totalPay))
+                .orders(orders)
+                .build();
+    }
 
-        long totalPay = merchFinal + ship;
+    // 최적 분할 1건에 대해서만 주문별 단계 금액을 만든다
+    private StrategyPlan splitPlan(Precomputed pre, OrderRules rules, long mask, int optionA, int optionB,
+                                   long lowerBound) {
 
-        sb.append(String.format("무료배송 조건: %,d원 이상 / 배송비: %,d원\n", (long) freeShip, (long) shippingFee));
-        sb.append(String.format("배송비 적용: %,d원\n", ship));
-        sb.append(String.format("주문 최종 결제: %,d원\n", totalPay));
+        long other = pre.fullMask() ^ mask;
+        OrderPlan orderA = calcOrder(pre, rules, mask, optionA);
+        OrderPlan orderB = calcOrder(pre, rules, other, optionB);
 
-        return new OrderCalc(totalPay, sb.toString().trim());
+        return found(orderA.getTotalPay() + orderB.getTotalPay(), lowerBound, List.of(orderA, orderB));
     }
 
-    private String couponLabel(Coupon c) {
-        if (c == null) return "미사용";
-        if (c.getName() != null && !c.getName().isBlank()) return c.getName();
-        return c.getType() + ":" + c.getValue();
+    // 3건 이상 분할도 최적 1건에 대해서만 만든다
+    private StrategyPlan partitionPlan(Precomputed pre, OrderRules rules, PartitionSolver.Result r) {
+
+        List<OrderPlan> orders = new ArrayList<>();
+        long total = 0;
+        for (int i = 0; i < r.masks.length; i++) {
+            OrderPlan order = calcOrder(pre, rules, r.masks[i], r.options[i]);
+            orders.add(order);
+            total += order.getTotalPay();
+        }
+        return found(total, total, orders);
     }
-    
-    private String itemsLabel(List<ProductItem> items) {
-        if (items == null || items.isEmpty()) return "(없음)";
-        return items.stream()
-                .map(p -> {
-                    String name = (p.getName() == null || p.getName().isBlank()) ? "상품" : p.getName();
-                    int qty = nz(p.getQuantity());
-                    long line = (long) nz(p.getPrice()) * qty;
-                    return String.format("%s x%d(%,d원)", name, qty, line);
-                })
-                .collect(Collectors.joining(", "));
+
+    /* ------------------------
+       주문 1건 계산 파이프라인
+       - 상품 자체 할인(라인별, 사전 계산)
+       - 프로모션(금액대) / 쿠폰(1장): OrderRules에 컴파일된 순서대로
+       - 배송(무료배송 조건)
+       option: 쿠폰 선택지 (0 = 미사용)
+       ------------------------ */
+    private OrderPlan calcOrder(Precomputed pre, OrderRules rules, long mask, int option) {
+        // 1) 상품 자체 할인 적용 후 금액 (사전 계산)
+        return calcOrder(rules, option, pre.linesOf(mask), null, pre.baseOf(mask), pre.merchOf(mask));
     }
-    
-    private String simpleItemNames(List<ProductItem> items) {
-        if (items == null || items.isEmpty()) return "(없음)";
-        return items.stream()
-                .map(p -> (p.getName() == null || p.getName().isBlank()) ? "상품" : p.getName())
-                .collect(Collectors.joining(", "));
+
+    // 수량 단위 분할 주문: quantities = 라인별 이 주문 수량 (0이면 담지 않음)
+    private OrderPlan calcOrder(CartInputs inputs, OrderRules rules, int[] quantities, int option) {
+        int count = 0;
+        for (int q : quantities) {
+            if (q > 0) count++;
+        }
+        int[] items = new int[count];
+        int[] qty = new int[count];
+        long base = 0, merch = 0;
+        count = 0;
+        for (int i = 0; i < quantities.length; i++) {
+            if (quantities[i] == 0) continue;
+            items[count] = i;
+            qty[count++] = quantities[i];
+            base += inputs.price[i] * quantities[i];
+            merch += inputs.discount[i].apply(inputs.price[i], quantities[i]);
+        }
+        return calcOrder(rules, option, items, qty, base, merch);
     }
-    
-    // mask 확인용
-    // 이진수에서 1인 비트 = A 주문에 포함 / 0 = B 주문에 포함
-    private String toBinaryMask(int mask, int n) {
-        String s = Integer.toBinaryString(mask);
-        if (s.length() < n) {
-            s = "0".repeat(n - s.length()) + s;
+
+    private OrderPlan calcOrder(OrderRules rules, int option, int[] items, int[] quantities, long base, long merch) {
+        long amount = merch;
+        long promoDiscount = 0;
+        long couponDiscount = 0;
+        boolean promoApplied = false;
+        boolean couponApplied = false;
+
+        // 2) 프로모션/쿠폰: 규칙별 할인액을 기록하며 탐색과 같은 규칙을 그대로 적용
+        for (int i = rules.first(option); i < rules.end(option); i++) {
+            long next = rules.apply(i, amount);
+            if (rules.isPromo(i)) {
+                promoApplied = rules.reached(i, amount);
+                promoDiscount = amount - next;
+            } else {
+                couponApplied = rules.reached(i, amount);
+                couponDiscount = amount - next;
+            }
+            amount = next;
         }
-        return s;
+
+        // 3) 배송비 (여기서는 “할인 적용 후 금액” 기준으로 무료배송 판단)
+        long ship = rules.shipping(amount);
+
+        return OrderPlan.builder()
+                .itemIndices(items)
+                .quantities(quantities)
+                .couponIndex(option - 1)
+                .baseAmount(base)
+                .merchandise(merch)
+                .promoApplied(promoApplied)
+                .promoDiscount(promoDiscount)
+                .couponApplied(couponApplied)
+                .couponDiscount(couponDiscount)
+                .shipping(ship)
+                .totalPay(amount + ship)
+                .build();
     }
 
+    /* ------------------------
+       사전 계산
+       - 라인별 할인 전/후 금액 (long[])
+       - mask별 상품할인 후 합계: 가장 낮은 비트를 뺀 mask에 그 라인 금액을 더함
+         (완전 탐색에서만 필요하므로 처음 쓸 때 만든다)
+       ------------------------ */
+    private Precomputed precompute(CartInputs inputs) {
+        int n = inputs.products();
+        long[] lineBase = new long[n];
+        long[] lineDiscounted = new long[n];
+        for (int i = 0; i < n; i++) {
+            lineBase[i] = inputs.lineBase(i);
+            lineDiscounted[i] = inputs.lineDiscounted(i);
+        }
 
+        return new Precomputed(lineBase, lineDiscounted);
+    }
 
     /* ------------------------
        계산 유틸
        ------------------------ */
-    private long productsBase(List<ProductItem> products) {
-        long sum = 0;
-        for (ProductItem p : products) {
-            sum += (long) nz(p.getPrice()) * (long) nz(p.getQuantity());
-        }
-        return sum;
+    private int nz(Integer v) { return v == null ? 0 : v; }
+    // 라인 단위 분할 결과(상품 64개 이하) → mask
+    private static long mask(BitSet lines) {
+        long[] words = lines.toLongArray();
+        return words.length == 0 ? 0 : words[0];
     }
+    // savedRate는 표시용 퍼센트이므로 소수점 2자리 반올림
+    private double round2(double v) { return Math.round(v * 100.0) / 100.0; }
 
-    private long applyProductDiscounts(List<ProductItem> products) {
-        long sum = 0;
+    // 정리된 입력 + 캐시 키
+    private static class Cart {
+        final CartInputs inputs;
+        final long[][] tiers; // 금액대 할인 {조건 금액[], 할인액[]}
+        final boolean promoBeforeCoupon;
+        final int shippingFee;
+        final int freeShip;
+        final int maxOrders;
+        final boolean splitQuantities;
+        final int alternatives;
+        final String key; // 캐시하지 않는 계산이면 null
+
+        // 계산 위치(정리된 목록) → 정렬 순위, 정렬 순위 → form 위치 (캐시하지 않으면 정렬 순위 = 계산 위치)
+        final int[] productRank;
+        final int[] couponRank;
+        final int[] productIndex;
+        final int[] couponIndex;
+
+        Cart(CartInputs inputs, long[][] tiers, boolean promoBeforeCoupon,
+             int shippingFee, int freeShip, int maxOrders, boolean splitQuantities, int alternatives, boolean keyed) {
+            this.inputs = inputs;
+            this.tiers = tiers;
+            this.promoBeforeCoupon = promoBeforeCoupon;
+            this.shippingFee = shippingFee;
+            this.freeShip = freeShip;
+            this.maxOrders = maxOrders;
+            this.splitQuantities = splitQuantities;
+            this.alternatives = alternatives;
+
+            if (!keyed) {
+                this.key = null;
+                this.productRank = identity(inputs.products());
+                this.couponRank = identity(inputs.coupons());
+                this.productIndex = inputs.productIndex;
+                this.couponIndex = inputs.couponIndex;
+                return;
+            }
+            CartFingerprint fingerprint = CartFingerprint.of(inputs,
+                    tiers, promoBeforeCoupon, shippingFee, freeShip, maxOrders, splitQuantities, alternatives);
+            this.key = fingerprint.key;
+            this.productRank = CartInputs.inverse(fingerprint.productOrder, inputs.products());
+            this.couponRank = CartInputs.inverse(fingerprint.couponOrder, inputs.coupons());
+            this.productIndex = compose(fingerprint.productOrder, inputs.productIndex);
+            this.couponIndex = compose(fingerprint.couponOrder, inputs.couponIndex);
+        }
 
-        for (ProductItem p : products) {
-            long price = nz(p.getPrice());
-            long qty = nz(p.getQuantity());
+        private static int[] identity(int size) {
+            int[] out = new int[size];
+            for (int i = 0; i < size; i++) out[i] = i;
+            return out;
+        }
 
-            long baseLine = price * qty;
+        // i → second[first[i]]
+        private static int[] compose(int[] first, int[] second) {
+            int[] out = new int[first.length];
+            for (int i = 0; i < first.length; i++) out[i] = second[first[i]];
+            return out;
+        }
+    }
 
-            String type = p.getDiscountType() == null ? "none" : p.getDiscountType();
-            double v = nzD(p.getDiscountValue());
+    private static class Precomputed {
+        final long[] lineBase;       // 라인별 할인 전 금액
+        final long[] lineDiscounted; // 라인별 상품할인 적용 후 금액
+        long totalBase;
+        long totalMerch;
+        private long[] maskMerch;    // mask별 상품할인 적용 후 합계 (길이 2^N, 완전 탐색 전용)
+
+        Precomputed(long[] lineBase, long[] lineDiscounted) {
+            this.lineBase = lineBase;
+            this.lineDiscounted = lineDiscounted;
+            long base = 0, merch = 0;
+            for (int i = 0; i < lineBase.length; i++) {
+                base += lineBase[i];
+                merch += lineDiscounted[i];
+            }
+            this.totalBase = base;
+            this.totalMerch = merch;
+        }
 
-            long discountedLine = baseLine;
+        long totalMerch() {
+            return totalMerch;
+        }
 
-            if ("fixed".equals(type)) {
-                // 1개당 정액 할인 - 소수점 이하 절사
-                long offPerUnit = Math.max(0, (long) v);
-                long totalOff = offPerUnit * qty;
-                discountedLine = Math.max(0, baseLine - totalOff);
+        long[] maskMerch() {
+            if (maskMerch == null) {
+                long[] sums = new long[1 << lineDiscounted.length];
+                for (int mask = 1; mask < sums.length; mask++) {
+                    int low = Integer.numberOfTrailingZeros(mask);
+                    sums[mask] = sums[mask & (mask - 1)] + lineDiscounted[low];
+                }
+                maskMerch = sums;
+            }
+            return maskMerch;
+        }
 
-            } else if ("percent".equals(type)) {
-                // % 할인 (라인 전체 적용과 동일 결과)
-                double pct = Math.max(0, Math.min(100, v));
-                // 할인 후 금액을 소수점 이하 절사
-                discountedLine = (long) (baseLine * (1 - pct / 100.0));
-                discountedLine = Math.max(0, discountedLine);
+        // 라인 1개 금액 변경(세션): 합계와, 만들어 둔 mask별 합계를 그 라인이 든 mask만 차이만큼 고친다
+        void updateLine(int i, long base, long discounted) {
+            long delta = discounted - lineDiscounted[i];
+            totalBase += base - lineBase[i];
+            totalMerch += delta;
+            lineBase[i] = base;
+            lineDiscounted[i] = discounted;
+            if (maskMerch != null && delta != 0) {
+                int bit = 1 << i;
+                for (int mask = bit; mask < maskMerch.length; mask = (mask + 1) | bit) {
+                    maskMerch[mask] += delta;
+                }
             }
+        }
 
-            sum += discountedLine;
+        long fullMask() {
+            int n = lineBase.length;
+            return n == Long.SIZE ? -1L : (1L << n) - 1;
         }
 
-        return sum;
-    }
+        // 주문 구성용(최적 후보 1건에만 사용)
+        int[] linesOf(long mask) {
+            int[] lines = new int[Long.bitCount(mask)];
+            int count = 0;
+            for (int i = 0; i < lineBase.length; i++) {
+                if ((mask & (1L << i)) != 0) lines[count++] = i;
+            }
+            return lines;
+        }
 
+        long maskOf(OrderPlan order) {
+            long mask = 0;
+            for (int i : order.getItemIndices()) mask |= 1L << i;
+            return mask;
+        }
+
+        long baseOf(long mask) {
+            return sumOf(lineBase, mask);
+        }
 
-    private long applyThresholdPromo(long amount, int threshold, int off) {
-        if (threshold <= 0 || off <= 0) return amount;
-        return (amount >= threshold) ? Math.max(0, amount - off) : amount;
+        long merchOf(long mask) {
+            return sumOf(lineDiscounted, mask);
+        }
+
+        private static long sumOf(long[] lines, long mask) {
+            long sum = 0;
+            for (int i = 0; i < lines.length; i++) {
+                if ((mask & (1L << i)) != 0) sum += lines[i];
+            }
+            return sum;
+        }
     }
 
-    private long applyCoupon(long amount, Coupon coupon) {
-        if (coupon == null) return amount;
+    /*
+     * 편집 세션 1개의 계산 상태 (CartSessionService가 세션마다 하나씩 들고, 한 번에 한 요청만 쓴다).
+     * 라인 금액 / mask별 합계와, 마지막으로 탐색한 장바구니의 최적 분할(A 주문 라인 + 주문별 쿠폰)을 남긴다.
+     *
+     * 완전 탐색 결과는 "금액 최소 후보 중 (mask, A쿠폰, B쿠폰) 순서가 가장 앞선 것"이다.
+     * 라인 금액과 규칙이 그대로이고 쿠폰만 빠졌다면(순서 유지) 후보는 줄기만 하므로,
+     * 이전 최적 분할이 빠진 쿠폰을 쓰지 않았다면 그대로 같은 답이다 → 탐색 없이 재사용.
+     * 세션 form의 쿠폰 객체는 그대로 유지되므로(CartEdit은 사용 여부만 바꿈) 쿠폰 목록은 객체로 비교한다.
+     */
+    static final class Snapshot {
+        private Precomputed pre;
+        private long splitMask;      // 0이면 없음
+        private Cart splitCart;      // 분할을 탐색한 장바구니
+        private int couponA, couponB; // 그때의 쿠폰 위치 (-1 = 미사용)
+        private boolean exactSplit;  // 완전 탐색으로 끝까지 찾은 분할이고, 그 뒤 라인 금액이 바뀌지 않음
+
+        // 새로 만든 라인 금액과 비교해 바뀐 라인만 고친다. 라인 수가 바뀌면(상품 추가/제외) 새 값으로 바꾼다
+        private Precomputed update(Precomputed fresh) {
+            if (pre == null || pre.lineBase.length != fresh.lineBase.length) {
+                pre = fresh;
+                splitMask = 0;
+                exactSplit = false;
+                return pre;
+            }
+            for (int i = 0; i < fresh.lineBase.length; i++) {
+                if (pre.lineBase[i] != fresh.lineBase[i] || pre.lineDiscounted[i] != fresh.lineDiscounted[i]) {
+                    pre.updateLine(i, fresh.lineBase[i], fresh.lineDiscounted[i]);
+                    exactSplit = false;
+                }
+            }
+            return pre;
+        }
+
+        private void record(Cart cart, Precomputed pre, StrategyPlan split, boolean exhaustive) {
+            if (split.getStatus() != PlanStatus.FOUND) {
+                exactSplit = false;
+                return;
+            }
+            OrderPlan a = split.getOrders().get(0);
+            OrderPlan b = split.getOrders().get(1);
+            splitMask = pre.maskOf(a);
+            splitCart = cart;
+            couponA = a.getCouponIndex();
+            couponB = b.getCouponIndex();
+            exactSplit = exhaustive && !split.isPartial();
+        }
+
+        // 이전 분할을 그대로 쓸 수 있으면 이번 쿠폰 option으로 옮긴 후보, 아니면 null
+        private SplitCandidate keptSplit(Cart cart, boolean exhaustive) {
+            if (!exhaustive || !exactSplit) return null;
+            Cart before = splitCart;
+            if (!Arrays.deepEquals(before.tiers, cart.tiers) || before.promoBeforeCoupon != cart.promoBeforeCoupon
+                    || before.shippingFee != cart.shippingFee || before.freeShip != cart.freeShip) {
+                return null;
+            }
+            // 이번 쿠폰 목록이 이전 목록에서 일부만 뺀 것인지 (이전 위치 → 이번 위치)
+            int[] moved = new int[before.inputs.coupons()];
+            Arrays.fill(moved, -1);
+            int next = 0;
+            for (int i = 0; i < moved.length && next < cart.inputs.coupons(); i++) {
+                if (before.inputs.coupon[i] == cart.inputs.coupon[next]) moved[i] = next++;
+            }
+            if (next != cart.inputs.coupons()) return null;
+            if ((couponA >= 0 && moved[couponA] < 0) || (couponB >= 0 && moved[couponB] < 0)) return null;
 
-        int minSpend = nz(coupon.getMinSpend());
-        if (amount < minSpend) return amount; // 조건 미달이면 미적용
+            int optionA = couponA < 0 ? 0 : moved[couponA] + 1;
+            int optionB = couponB < 0 ? 0 : moved[couponB] + 1;
+            return new SplitCandidate(0, splitMask, optionA, optionB);
+        }
+    }
 
-        String type = coupon.getType();
-        double value = nzD(coupon.getValue());
-        int cap = nz(coupon.getMaxDiscount());
+    /*
+     * mask 구간 [from, to) 완전 탐색.
+     * 탐색 중에는 금액만 비교하고 최적 후보의 위치(mask, 쿠폰 인덱스)만 기록한다.
+     * 같은 금액이면 먼저 만난 후보(mask, A쿠폰, B쿠폰 순으로 가장 작은 것)를 유지
+     *
+     * 결과를 바꾸지 않는 범위에서만 건너뛴다 (더 작은 금액일 때만 교체하므로 "같거나 비싼" 후보는 무시해도 같다)
+     * - mask: 양쪽 하한(OrderRules.lowerBound) 합이 현재 최적 이상이면 쿠폰 조합을 보지 않는다
+     * - 쿠폰: 미사용(0번)보다 싸지지 않는 쿠폰은, 앞서 본 미사용 조합이 같거나 더 싸므로 건너뛴다
+     *   (최소 사용 금액 미달, 종류 불명 등)
+     * - mask: 하한 합이 첫 답(cutoff)보다 크면 건너뛴다 (같은 금액은 탐색)
+     * 대안 표(ranking)가 있으면 평가한 쿠폰 조합을 구간별 복사본에 기록해 끝에 합치고,
+     * 표가 아직 필요로 하는 mask(하한 < ranking.limit())는 건너뛰지 않는다.
+     * 시간 예산은 mask 1024개마다 확인하고, 지나면 모든 구간이 멈춘다 (timedOut)
+     */
+    private static class MaskSearch {
+        final long[] maskMerch;
+        final int full;
+        final OrderRules cost; // 구체 타입: 가장 안쪽 루프에서 인터페이스 호출 없이
+        final boolean[][] conflict;
+        final long cutoff;
+        final Deadline deadline;
+        final PlanRanking ranking; // null이면 대안 기록 안 함
+        volatile boolean timedOut;
+        // 쿠폰 조합까지 계산한 mask / 하한으로 건너뛴 mask (병렬 구간이 함께 센다)
+        final LongAdder evaluated = new LongAdder();
+        final LongAdder pruned = new LongAdder();
+
+        MaskSearch(long[] maskMerch, int full, OrderRules cost, boolean[][] conflict,
+                   long cutoff, Deadline deadline, PlanRanking ranking) {
+            this.maskMerch = maskMerch;
+            this.full = full;
+            this.cost = cost;
+            this.conflict = conflict;
+            this.cutoff = cutoff;
+            this.deadline = deadline;
+            this.ranking = ranking;
+        }
 
-        long discounted = amount;
+        SplitCandidate scan(int from, int to) {
+            int m = conflict.length;
+            long[] totalB = new long[m];
+
+            int bestMask = -1, bestA = -1, bestB = -1;
+            long bestTotal = Long.MAX_VALUE;
+            long evaluatedMasks = 0, prunedMasks = 0;
+            PlanRanking ranked = ranking == null ? null : ranking.copy();
+
+            for (int mask = from; mask < to; mask++) {
+                if ((mask & 1023) == 0 && stopped()) break;
+                long merchA = maskMerch[mask];
+                long merchB = maskMerch[full ^ mask];
+
+                long lowerBound = cost.lowerBound(merchA) + cost.lowerBound(merchB);
+                if (((bestMask >= 0 && lowerBound >= bestTotal) || lowerBound > cutoff)
+                        && (ranked == null || lowerBound >= ranked.limit())) {
+                    prunedMasks++;
+                    continue;
+                }
+                evaluatedMasks++;
 
-        if ("fixed".equals(type)) {
-        	// 정액 할인은 소수점 이하 절사
-            long off = Math.max(0, (long) value);
-            discounted = Math.max(0, amount - off);
-        } else if ("percent".equals(type)) {
-            double pct = Math.max(0, Math.min(100, value));
-            // 퍼센트 할인은 소수점 이하 절사
-            long off = (long) (amount * (pct / 100.0));
-            
-            if (cap > 0) off = Math.min(off, cap);
-            discounted = Math.max(0, amount - off);
+                // B 주문 금액은 쿠폰별로 한 번만 계산
+                for (int ib = 0; ib < m; ib++) {
+                    totalB[ib] = cost.total(merchB, ib);
+                }
+                long noCouponA = 0;
+                for (int ia = 0; ia < m; ia++) {
+                    long totalA = cost.total(merchA, ia);
+                    if (ia == 0) noCouponA = totalA;
+                    else if (totalA >= noCouponA) continue;
+                    for (int ib = 0; ib < m; ib++) {
+                        if (conflict[ia][ib]) continue;
+                        if (ib > 0 && totalB[ib] >= totalB[0]) continue;
+
+                        long total = totalA + totalB[ib];
+                        if (ranked != null) ranked.pair(total, mask, ia, ib);
+                        if (bestMask < 0 || total < bestTotal) {
+                            bestTotal = total;
+                            bestMask = mask;
+                            bestA = ia;
+                            bestB = ib;
+                        }
+                    }
+                }
+            }
+            evaluated.add(evaluatedMasks);
+            pruned.add(prunedMasks);
+            if (ranked != null) {
+                synchronized (ranking) {
+                    ranking.merge(ranked);
+                }
+            }
+            return bestMask < 0 ? null : new SplitCandidate(bestTotal, bestMask, bestA, bestB);
         }
 
-        return discounted;
+        private boolean stopped() {
+            if (!timedOut && deadline.passed()) timedOut = true;
+            return timedOut;
+        }
     }
 
-    private List<ProductItem> safeProducts(List<ProductItem> in) {
-        if (in == null) return List.of();
-        return in.stream()
-                .filter(Objects::nonNull)
-                .filter(ProductItem::isActive) 
-                .filter(p -> nz(p.getPrice()) >= 0)
-                .filter(p -> nz(p.getQuantity()) > 0)
-                .limit(5)
-                .collect(Collectors.toList());
+    // 구간을 반으로 나눠 병렬 탐색. 합칠 때 같은 금액이면 앞 구간 후보를 남겨 순차 탐색과 같은 결과
+    private static class MaskRangeTask extends RecursiveTask<SplitCandidate> {
+        final MaskSearch search;
+        final int from;
+        final int to;
+        final int leaf;
+
+        MaskRangeTask(MaskSearch search, int from, int to, int leaf) {
+            this.search = search;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected SplitCandidate compute() {
+            if (to - from <= leaf) return search.scan(from, to);
+
+            int mid = (from + to) >>> 1;
+            MaskRangeTask left = new MaskRangeTask(search, from, mid, leaf);
+            left.fork();
+            SplitCandidate right = new MaskRangeTask(search, mid, to, leaf).compute();
+            return SplitCandidate.better(left.join(), right);
+        }
     }
 
-    private List<Coupon> safeCoupons(List<Coupon> in) {
-        if (in == null) return List.of();
-        return in.stream()
-                .filter(Objects::nonNull)
-                .filter(Coupon::isActive)    
-                .filter(c -> c.getType() != null)
-                .filter(c -> nzD(c.getValue()) > 0)
-                .limit(3)
-                .collect(Collectors.toList());
+    private static final class Alternatives {
+        static final Alternatives NONE = new Alternatives(List.of(), List.of());
+
+        final List<StrategyPlan> top;
+        final List<CouponAlternative> without;
+
+        Alternatives(List<StrategyPlan> top, List<CouponAlternative> without) {
+            this.top = top;
+            this.without = without;
+        }
     }
 
-    private int nz(Integer v) { return v == null ? 0 : v; }
-    private double nzD(Double v) { return v == null ? 0.0 : v; }
-    // savedRate는 표시용 퍼센트이므로 소수점 2자리 반올림
-    private double round2(double v) { return Math.round(v * 100.0) / 100.0; }
+    private static class SplitCandidate {
+        final long total;
+        final long mask;
+        final int optionA;
+        final int optionB;
 
-    private String buildDetail(List<ProductItem> products, List<Coupon> coupons,
-                               int thAmount, int thOff, boolean promoBeforeCoupon,
-                               int shippingFee, int freeShip,
-                               long baselinePay,
-                               OrderCalc bestSingle,
-                               SplitCalc bestSplit,
-                               boolean splitIsBetter) {
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("=== 입력 요약 ===\n");
-        sb.append("상품(최대5):\n");
-        for (ProductItem p : products) {
-            sb.append(String.format("- %s / %,d원 x %d개 / 상품할인:%s(%.2f)\n",
-                    (p.getName() == null ? "상품" : p.getName()),
-                    (long) nz(p.getPrice()), nz(p.getQuantity()),
-                    (p.getDiscountType() == null ? "none" : p.getDiscountType()),
-                    nzD(p.getDiscountValue())));
-        }
-        sb.append("\n쿠폰(보유 최대3):\n");
-        for (Coupon c : coupons) {
-            sb.append(String.format("- %s / %s %.2f / 최소 %,d원 / 캡 %,d원\n",
-                    (c.getName() == null ? "쿠폰" : c.getName()),
-                    c.getType(), nzD(c.getValue()),
-                    (long) nz(c.getMinSpend()), (long) nz(c.getMaxDiscount())));
-        }
-
-        sb.append("\n프로모션(금액대): ");
-        sb.append(String.format("%,d원 이상 %,d원 할인 / 순서:%s\n",
-                (long) thAmount, (long) thOff, promoBeforeCoupon ? "프로모션→쿠폰" : "쿠폰→프로모션"));
-
-        sb.append(String.format("배송: 배송비 %,d원 / 무료배송 %,d원 이상\n",
-                (long) shippingFee, (long) freeShip));
-
-        sb.append("\n=== 기준(혜택없음) ===\n");
-        sb.append(String.format("기준 결제(상품합+배송비): %,d원\n", baselinePay));
-
-        sb.append("\n=== 1번에 구매 최적 ===\n");
-        sb.append(bestSingle.detail);
-
-        sb.append("\n\n=== 2번으로 나눠 구매 최적 ===\n");
-        sb.append(bestSplit.plan);
-
-        sb.append("\n\n=== 최종 선택 ===\n");
-        sb.append(splitIsBetter ? "2번으로 나눠 구매가 더 저렴\n" : "1번에 구매가 더 저렴\n");
-
-        return sb.toString().trim();
-    }
-
-    private static class OrderCalc {
-        final long totalPay;
-        final String detail;
-        OrderCalc(long totalPay, String detail) {
-            this.totalPay = totalPay;
-            this.detail = detail;
-        }
-    }
-
-    private static class SplitCalc {
-        final long totalPay;
-        final String plan;
-        
-        // 어떤 분할이었는지 기록
-        final int mask;
-        final String couponA;
-        final String couponB;
-        final String itemsA;
-        final String itemsB;
-        
-        SplitCalc(long totalPay, String plan, int mask, String couponA, String couponB, String itemsA, String itemsB) {
-            this.totalPay = totalPay;
-            this.plan = plan;
+        SplitCandidate(long total, long mask, int optionA, int optionB) {
+            this.total = total;
             this.mask = mask;
-            this.couponA = couponA;
-            this.couponB = couponB;
-            this.itemsA = itemsA;
-            this.itemsB = itemsB;
+            this.optionA = optionA;
+            this.optionB = optionB;
+        }
+
+        // earlier: 앞 구간 결과. 금액이 같으면 앞 구간 우선
+        static SplitCandidate better(SplitCandidate earlier, SplitCandidate later) {
+            if (earlier == null) return later;
+            if (later == null) return earlier;
+            return later.total < earlier.total ? later : earlier;
         }
     }
 }
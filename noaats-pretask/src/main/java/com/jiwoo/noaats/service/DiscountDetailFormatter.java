@@ -0,0 +1,281 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.CouponAlternative;
+import com.jiwoo.noaats.domain.DiscountResult;
+import com.jiwoo.noaats.domain.OrderPlan;
+import com.jiwoo.noaats.domain.PlanStatus;
+import com.jiwoo.noaats.domain.ProductItem;
+import com.jiwoo.noaats.domain.PromoTier;
+import com.jiwoo.noaats.domain.StrategyPlan;
+import com.jiwoo.noaats.form.DiscountForm;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DiscountResult를 사람이 읽는 문자열로 만든다 (화면 전용).
+ * 결과에는 상품/쿠폰 위치와 단계별 금액만 있으므로 이름/설정 값은 같은 요청(form)에서 읽는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class DiscountDetailFormatter {
+
+    private static final String TIMED_OUT = "시간 제한으로 탐색을 마치지 못함.";
+
+    private final DiscountProperties properties;
+    private final DiscountMetrics metrics;
+
+    public String summary(DiscountResult result) {
+        String text = result.getOrderCount() > 1
+                ? String.format("✅ 추천: %d번으로 나눠 구매 (%,d원 절감)", result.getOrderCount(), result.getTotalSaved())
+                : String.format("✅ 추천: 1번에 구매 (%,d원 절감)", result.getTotalSaved());
+        if (result.isBestEffort() && !result.isOptimal()) {
+            text += String.format(" - 시간 제한으로 분할 탐색 중단(최적과 최대 %,d원 차이 가능)", result.getOptimalityGap());
+        }
+        return text;
+    }
+
+    // 추천 전략의 주문별 한 줄 요약
+    public List<String> orderLines(DiscountForm form, DiscountResult result) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < result.getOrders().size(); i++) {
+            OrderPlan order = result.getOrders().get(i);
+            lines.add(String.format("주문 %d: %s / 쿠폰: %s / %,d원", i + 1,
+                    String.join(", ", itemNames(form, order)), couponLabel(form, order), order.getTotalPay()));
+        }
+        return lines;
+    }
+
+    // 대안 전략 한 줄 요약: 추천 외 가장 싼 전략, 추천이 쓴 쿠폰별 그 쿠폰 없이 가장 싼 전략 (추천 대비 차액)
+    public List<String> alternativeLines(DiscountForm form, DiscountResult result) {
+        List<String> lines = new ArrayList<>();
+        if (result.getAlternatives() == null) return lines;
+        for (int i = 0; i < result.getAlternatives().size(); i++) {
+            lines.add(String.format("대안 %d: %s", i + 1, planLine(form, result, result.getAlternatives().get(i))));
+        }
+        for (CouponAlternative w : result.getWithoutCoupons()) {
+            lines.add(String.format("%s 없이: %s", couponName(form.getCoupons().get(w.getCouponIndex())),
+                    planLine(form, result, w.getPlan())));
+        }
+        return lines;
+    }
+
+    private String planLine(DiscountForm form, DiscountResult result, StrategyPlan plan) {
+        List<String> coupons = new ArrayList<>();
+        for (OrderPlan order : plan.getOrders()) coupons.add(couponLabel(form, order));
+        return String.format("%d번에 구매 / 쿠폰: %s / %,d원 (+%,d원)%s", plan.getOrders().size(),
+                String.join(", ", coupons), plan.getTotalPay(), plan.getTotalPay() - result.getFinalPay(),
+                plan.isPartial() ? " (탐색 중단 시점 기준)" : "");
+    }
+
+    // 계산 과정/플랜(검증용)
+    public String detail(DiscountForm form, DiscountResult result) {
+        long start = System.nanoTime();
+        CartInputs inputs = CartInputs.of(form, properties.getMaxProducts(), properties.getMaxCoupons());
+        Settings settings = new Settings(form);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== 입력 요약 ===\n");
+        sb.append(String.format("상품(최대%d):\n", properties.getMaxProducts()));
+        for (int i : inputs.productIndex) {
+            ProductItem p = form.getProducts().get(i);
+            sb.append(String.format("- %s / %,d원 x %d개 / 상품할인:%s\n",
+                    (p.getName() == null ? "상품" : p.getName()),
+                    (long) nz(p.getPrice()), nz(p.getQuantity()),
+                    productDiscountLabel(p)));
+        }
+        sb.append(String.format("\n쿠폰(보유 최대%d):\n", properties.getMaxCoupons()));
+        for (int i : inputs.couponIndex) {
+            Coupon c = form.getCoupons().get(i);
+            sb.append(String.format("- %s / %s %.2f / 최소 %,d원 / 캡 %,d원\n",
+                    (c.getName() == null ? "쿠폰" : c.getName()),
+                    c.getType(), nzD(c.getValue()),
+                    (long) nz(c.getMinSpend()), (long) nz(c.getMaxDiscount())));
+        }
+
+        sb.append("\n프로모션(금액대): ");
+        sb.append(String.format("%,d원 이상 %,d원 할인", (long) settings.thAmount, (long) settings.thOff));
+        // 추가 구간은 입력한 경우에만 (입력 그대로, 계산은 도달한 구간 중 가장 큰 할인)
+        if (form.getPromoTiers() != null) {
+            for (PromoTier t : form.getPromoTiers()) {
+                if (t == null) continue;
+                sb.append(String.format(", %,d원 이상 %,d원 할인", (long) nz(t.getAmount()), (long) nz(t.getOff())));
+            }
+        }
+        sb.append(String.format(" / 순서:%s\n", settings.promoBeforeCoupon ? "프로모션→쿠폰" : "쿠폰→프로모션"));
+
+        sb.append(String.format("배송: 배송비 %,d원 / 무료배송 %,d원 이상\n",
+                (long) settings.shippingFee, (long) settings.freeShip));
+
+        sb.append("\n=== 기준(혜택없음) ===\n");
+        sb.append(String.format("기준 결제(상품합+배송비): %,d원\n", result.getBasePay()));
+
+        sb.append("\n=== 1번에 구매 최적 ===\n");
+        sb.append(orderDetail(form, settings, result.getSingleOrder().getOrders().get(0)));
+
+        sb.append("\n\n=== 2번으로 나눠 구매 최적 ===\n");
+        sb.append(splitDetail(form, inputs, settings, result.getTwoOrders()));
+
+        if (result.getManyOrders().getStatus() != PlanStatus.NOT_REQUESTED) {
+            sb.append(String.format("\n\n=== 3~%d번으로 나눠 구매 최적 ===\n", result.getMaxOrders()));
+            sb.append(partitionDetail(form, settings, result.getManyOrders()));
+        }
+
+        sb.append("\n\n=== 최종 선택 ===\n");
+        sb.append(result.getOrderCount() > 1
+                ? String.format("%d번으로 나눠 구매가 더 저렴\n", result.getOrderCount())
+                : "1번에 구매가 더 저렴\n");
+
+        metrics.stage(DiscountMetrics.Stage.DETAIL, inputs.products(), start);
+        return sb.toString().trim();
+    }
+
+    private String splitDetail(DiscountForm form, CartInputs inputs, Settings settings, StrategyPlan plan) {
+        if (plan.getStatus() == PlanStatus.NOT_REQUESTED) return "분할 구매 미사용(최대 주문 1건).";
+        if (plan.getStatus() == PlanStatus.TIMED_OUT) return TIMED_OUT;
+        if (plan.getStatus() != PlanStatus.FOUND) return "나눠 구매 후보 없음(상품이 1종이거나 분할 조건 제외).";
+
+        OrderPlan a = plan.getOrders().get(0);
+        OrderPlan b = plan.getOrders().get(1);
+
+        // 근사 탐색이거나 시간 제한으로 멈춘 결과면 최적해와의 최대 차이를 먼저 표시
+        String approx = plan.getLowerBound() < plan.getTotalPay()
+                ? String.format("%s(최적해와 최대 %,d원 차이 가능)\n", plan.isPartial() ? "시간 제한으로 탐색 중단" : "근사 탐색",
+                        plan.getTotalPay() - plan.getLowerBound())
+                : "";
+
+        // mask 확인용: 정리된 상품 순서에서 1인 비트 = A 주문, 0 = B 주문 (왼쪽이 마지막 상품)
+        // 수량 단위 분할은 한 상품이 두 주문에 들어갈 수 있어 mask 대신 주문별 수량으로 표시
+        String layout;
+        if (a.getQuantities() != null) {
+            layout = "수량 분할";
+        } else {
+            int n = inputs.products();
+            int[] position = CartInputs.inverse(inputs.productIndex, form.getProducts().size());
+            char[] mask = "0".repeat(n).toCharArray();
+            for (int item : a.getItemIndices()) mask[n - 1 - position[item]] = '1';
+            layout = "mask=" + new String(mask);
+        }
+
+        return approx
+                + String.format("%s (A=[%s], B=[%s])\n", layout,
+                        simpleItemNames(form, a), simpleItemNames(form, b))
+                + String.format("쿠폰 배치 → A: %s | B: %s\n\n", couponLabel(form, a), couponLabel(form, b))
+                + "──── 주문 A 상세 ────\n"
+                + orderDetail(form, settings, a) + "\n\n"
+                + "──── 주문 B 상세 ────\n"
+                + orderDetail(form, settings, b);
+    }
+
+    private String partitionDetail(DiscountForm form, Settings settings, StrategyPlan plan) {
+        if (plan.getStatus() == PlanStatus.TOO_MANY_PRODUCTS) {
+            int limit = Math.min(properties.getSplit().getPartitionMaxProducts(), DiscountCalculatorService.PARTITION_LIMIT);
+            return String.format("상품 %d종 초과: 3건 이상 분할 탐색 생략.", limit);
+        }
+        if (plan.getStatus() == PlanStatus.TIMED_OUT) return TIMED_OUT;
+        if (plan.getStatus() != PlanStatus.FOUND) return "나눠 구매 후보 없음(상품이 3종 미만).";
+
+        List<OrderPlan> orders = plan.getOrders();
+        StringBuilder summary = new StringBuilder();
+        StringBuilder details = new StringBuilder();
+        for (int i = 0; i < orders.size(); i++) {
+            OrderPlan order = orders.get(i);
+            summary.append(String.format("주문 %d: [%s] / 쿠폰: %s\n", i + 1,
+                    String.join(", ", itemNames(form, order)), couponLabel(form, order)));
+            details.append(String.format("\n──── 주문 %d 상세 ────\n", i + 1))
+                    .append(orderDetail(form, settings, order)).append("\n");
+        }
+
+        String text = String.format("주문 %d건으로 분할\n", orders.size()) + summary + details;
+        return text.trim();
+    }
+
+    /* ------------------------
+       주문 1건 계산 과정
+       - 상품 자체 할인(라인별)
+       - 프로모션(금액대) / 쿠폰(1장): 요청한 순서대로
+       - 배송(무료배송 조건)
+       ------------------------ */
+    private String orderDetail(DiscountForm form, Settings settings, OrderPlan order) {
+        String coupon = couponLabel(form, order);
+        long amount = order.getMerchandise();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("상품합계(할인전): %,d원\n", order.getBaseAmount()));
+        sb.append(String.format("상품할인 적용 후: %,d원\n", order.getMerchandise()));
+
+        if (settings.promoBeforeCoupon) {
+            sb.append(String.format("금액대할인: %,d원 → %,d원\n", amount, amount - order.getPromoDiscount()));
+            amount -= order.getPromoDiscount();
+            sb.append(String.format("쿠폰(%s): %,d원 → %,d원\n", coupon, amount, amount - order.getCouponDiscount()));
+        } else {
+            sb.append(String.format("쿠폰(%s): %,d원 → %,d원\n", coupon, amount, amount - order.getCouponDiscount()));
+            amount -= order.getCouponDiscount();
+            sb.append(String.format("금액대할인: %,d원 → %,d원\n", amount, amount - order.getPromoDiscount()));
+        }
+
+        sb.append(String.format("무료배송 조건: %,d원 이상 / 배송비: %,d원\n", (long) settings.freeShip, (long) settings.shippingFee));
+        sb.append(String.format("배송비 적용: %,d원\n", order.getShipping()));
+        sb.append(String.format("주문 최종 결제: %,d원\n", order.getTotalPay()));
+
+        return sb.toString().trim();
+    }
+
+    // "percent(10.00)", "bundle(2+1)"
+    private String productDiscountLabel(ProductItem p) {
+        String type = p.getDiscountType() == null ? "none" : p.getDiscountType();
+        if ("bundle".equals(type)) return String.format("bundle(%d+%d)", nz(p.getBundleBuy()), nz(p.getBundleFree()));
+        return String.format("%s(%.2f)", type, nzD(p.getDiscountValue()));
+    }
+
+    // 수량 단위 분할이면 "셔츠 x2"
+    private List<String> itemNames(DiscountForm form, OrderPlan order) {
+        List<String> names = new ArrayList<>();
+        int[] items = order.getItemIndices();
+        for (int k = 0; k < items.length; k++) {
+            String name = form.getProducts().get(items[k]).getName();
+            name = (name == null || name.isBlank()) ? "상품" : name;
+            names.add(order.getQuantities() == null ? name : name + " x" + order.getQuantities()[k]);
+        }
+        return names;
+    }
+
+    private String simpleItemNames(DiscountForm form, OrderPlan order) {
+        if (order.getItemIndices().length == 0) return "(없음)";
+        return String.join(", ", itemNames(form, order));
+    }
+
+    private String couponLabel(DiscountForm form, OrderPlan order) {
+        if (order.getCouponIndex() < 0) return "미사용";
+        return couponName(form.getCoupons().get(order.getCouponIndex()));
+    }
+
+    private String couponName(Coupon c) {
+        if (c.getName() != null && !c.getName().isBlank()) return c.getName();
+        return c.getType() + ":" + c.getValue();
+    }
+
+    private static int nz(Integer v) { return v == null ? 0 : v; }
+    private static double nzD(Double v) { return v == null ? 0.0 : v; }
+
+    // 프로모션/배송 설정 (서비스와 같은 기본값)
+    private static class Settings {
+        final int thAmount;
+        final int thOff;
+        final boolean promoBeforeCoupon;
+        final int shippingFee;
+        final int freeShip;
+
+        Settings(DiscountForm form) {
+            this.thAmount = nz(form.getThresholdAmount());
+            this.thOff = nz(form.getThresholdOff());
+            this.promoBeforeCoupon = form.getPromoBeforeCoupon() == null || form.getPromoBeforeCoupon();
+            this.shippingFee = nz(form.getShippingFee());
+            this.freeShip = nz(form.getFreeShippingThreshold());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.jiwoo.noaats.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계산 단계별 시간 / 분할 탐색 후보 수 기록 (Micrometer).
+ * - discount.request: 장바구니 1건 계산 (캐시 적중 포함, 일괄 계산은 항목별)
+ * - discount.stage{stage, products}: 단계별 시간. products는 장바구니 상품 수 구간
+ * - discount.split.candidates / discount.split.pruned {engine}: 요청 1건의 2주문 탐색 후보 수 / 하한으로 제외한 구간 수 (완전 탐색은 mask 단위)
+ * - discount.compute{route}: 시간 제한 계산(DiscountRequestExecutor)의 처리 경로별 요청 수
+ * 태그 조합이 고정되어 있으므로 타이머는 미리 만들어 두고 요청마다 찾지 않는다.
+ */
+@Component
+public class DiscountMetrics {
+
+    enum Stage {
+        SANITIZE("sanitize"),   // 입력 정리 + 캐시 키
+        BASELINE("baseline"),   // 라인 금액 사전 계산 + 기준 결제
+        SINGLE("single"),       // 1주문 최적
+        SPLIT("split"),         // 2주문 분할 탐색
+        PARTITION("partition"), // 3~K주문 분할 탐색
+        DETAIL("detail");       // 화면용 계산 과정 문자열
+
+        final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    enum Route {
+        INLINE("inline"),       // 작은 장바구니: 요청 스레드에서 바로 계산
+        POOLED("pooled"),       // 계산 풀에서 시간 안에 끝남
+        TIMED_OUT("timeout"),   // 시간 제한: 중간 결과 반환
+        REJECTED("rejected");   // 계산 풀 대기열이 가득 참
+
+        final String tag;
+
+        Route(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    // 상품 수 구간 상한 (마지막 구간은 그 이상 전부)
+    private static final int[] PRODUCT_BUCKETS = {4, 8, 12, 16, 24, 40};
+
+    private final Timer request;
+    private final Timer[][] stages;
+    private final DistributionSummary[] candidates;
+    private final DistributionSummary[] pruned;
+    private final Counter[] routes;
+
+    public DiscountMetrics(MeterRegistry registry) {
+        this.request = Timer.builder("discount.request")
+                .description("장바구니 1건 계산 시간")
+                .register(registry);
+
+        this.stages = new Timer[Stage.values().length][PRODUCT_BUCKETS.length + 1];
+        for (Stage stage : Stage.values()) {
+            for (int b = 0; b <= PRODUCT_BUCKETS.length; b++) {
+                stages[stage.ordinal()][b] = Timer.builder("discount.stage")
+                        .description("할인 계산 단계별 처리 시간")
+                        .tag("stage", stage.tag)
+                        .tag("products", bucketLabel(b))
+                        .register(registry);
+            }
+        }
+
+        SplitEngine[] engines = {SplitEngine.EXHAUSTIVE, SplitEngine.OPTIMIZED};
+        this.candidates = new DistributionSummary[engines.length];
+        this.pruned = new DistributionSummary[engines.length];
+        for (int i = 0; i < engines.length; i++) {
+            String engine = engines[i].name().toLowerCase(Locale.ROOT);
+            candidates[i] = DistributionSummary.builder("discount.split.candidates")
+                    .description("요청 1건의 2주문 탐색에서 평가한 분할 후보(상품 조합 또는 부분합) 수")
+                    .tag("engine", engine)
+                    .register(registry);
+            pruned[i] = DistributionSummary.builder("discount.split.pruned")
+                    .description("요청 1건의 2주문 탐색에서 하한으로 제외한 구간 수")
+                    .tag("engine", engine)
+                    .register(registry);
+        }
+
+        this.routes = new Counter[Route.values().length];
+        for (Route route : Route.values()) {
+            routes[route.ordinal()] = Counter.builder("discount.compute")
+                    .description("시간 제한 계산의 처리 경로별 요청 수")
+                    .tag("route", route.tag)
+                    .register(registry);
+        }
+    }
+
+    // start: System.nanoTime() 시작값
+    void request(long start) {
+        request.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    void stage(Stage stage, int products, long start) {
+        stages[stage.ordinal()][bucket(products)].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    void splitSearch(boolean exhaustive, long evaluated, long prunedRegions) {
+        int i = exhaustive ? 0 : 1;
+        candidates[i].record(evaluated);
+        pruned[i].record(prunedRegions);
+    }
+
+    void route(Route route) {
+        routes[route.ordinal()].increment();
+    }
+
+    private static int bucket(int products) {
+        for (int b = 0; b < PRODUCT_BUCKETS.length; b++) {
+            if (products <= PRODUCT_BUCKETS[b]) return b;
+        }
+        return PRODUCT_BUCKETS.length;
+    }
+
+    // "1-4", "5-8", ..., "41+"
+    private static String bucketLabel(int b) {
+        int from = b == 0 ? 1 : PRODUCT_BUCKETS[b - 1] + 1;
+        return b < PRODUCT_BUCKETS.length ? from + "-" + PRODUCT_BUCKETS[b] : from + "+";
+    }
+}
@@ -0,0 +1,86 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.DiscountResult;
+import com.jiwoo.noaats.form.DiscountForm;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 화면/JSON 단건 계산 요청 처리 (discount.compute.enabled=true일 때).
+ * - 작은 장바구니는 요청 스레드에서 바로 계산 → 큰 장바구니가 계산 풀을 채워도 지연이 늘지 않는다
+ * - 큰 장바구니는 크기가 고정된 계산 풀에서 계산하고 시간 제한을 넘기면 그때까지의 최선 결과를 반환
+ *   (분할 전략은 TIMED_OUT, optimalityGap은 분할 하한 기준)
+ * - 풀 계산도 같은 시간 제한(대기 포함)에서 탐색을 멈추고, 아직 대기열에 있던 계산은 빼서 풀 스레드를 돌려준다
+ * - 풀 대기열이 가득 차면 RejectedExecutionException
+ */
+@Service
+@RequiredArgsConstructor
+public class DiscountRequestExecutor {
+
+    private final DiscountCalculatorService calculatorService;
+    private final DiscountProperties properties;
+    private final ThreadPoolExecutor discountComputePool;
+    private final DiscountMetrics metrics;
+
+    public DiscountResult calculate(DiscountForm form) {
+        DiscountProperties.Compute compute = properties.getCompute();
+        if (!compute.isEnabled()) return calculatorService.calculateBestStrategy(form);
+        if (activeProducts(form) <= compute.getInlineMaxProducts()) {
+            metrics.route(DiscountMetrics.Route.INLINE);
+            return calculatorService.calculateBestStrategy(form);
+        }
+
+        // 대기열에서 기다린 시간도 제한에 넣는다
+        Deadline limit = Deadline.after(System.nanoTime(), compute.getTimeout().toNanos());
+        AtomicReference<DiscountResult> soFar = new AtomicReference<>();
+        Future<DiscountResult> task;
+        try {
+            task = discountComputePool.submit(() -> calculatorService.calculateBestStrategy(form, limit, soFar::set));
+        } catch (RejectedExecutionException e) {
+            metrics.route(DiscountMetrics.Route.REJECTED);
+            throw e;
+        }
+
+        try {
+            DiscountResult result = task.get(compute.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            metrics.route(DiscountMetrics.Route.POOLED);
+            return result;
+        } catch (TimeoutException e) {
+            metrics.route(DiscountMetrics.Route.TIMED_OUT);
+            abandon(task);
+            return bestSoFar(form, soFar);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(task);
+            return bestSoFar(form, soFar);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException("할인 계산 실패", e.getCause());
+        }
+    }
+
+    // 응답을 보낸 계산: 대기열에 있으면 빼고, 이미 돌고 있으면 시간 제한(limit)에서 곧 멈춘다
+    private void abandon(Future<DiscountResult> task) {
+        if (task.cancel(false) && task instanceof Runnable queued) discountComputePool.remove(queued);
+    }
+
+    // 아직 대기열에 있어 중간 결과도 없으면 1주문 최적만 바로 계산 (요청 스레드, 상품 수에 비례하는 시간)
+    private DiscountResult bestSoFar(DiscountForm form, AtomicReference<DiscountResult> soFar) {
+        DiscountResult result = soFar.get();
+        return result != null ? result : calculatorService.firstResult(form);
+    }
+
+    private static long activeProducts(DiscountForm form) {
+        if (form.getProducts() == null) return 0;
+        return form.getProducts().stream().filter(p -> p != null && p.isActive()).count();
+    }
+}
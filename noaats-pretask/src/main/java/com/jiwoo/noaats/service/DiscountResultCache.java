@@ -0,0 +1,69 @@
+package com.jiwoo.noaats.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.DiscountResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * calculateBestStrategy 결과 캐시 (CartFingerprint 키).
+ * 크기 상한 + 저장 후 TTL로 비우고, 적중/미스/제거 횟수를 기록한다.
+ * 기록은 MeterBinder로 내보낸다 (cache.gets/cache.evictions/cache.size{cache=discountResults} + 적중률 게이지).
+ */
+@Component
+public class DiscountResultCache implements MeterBinder {
+
+    private final Cache<String, DiscountResult> cache; // 비활성화면 null
+
+    public DiscountResultCache(DiscountProperties properties) {
+        DiscountProperties.Cache config = properties.getCache();
+        this.cache = config.isEnabled()
+                ? Caffeine.newBuilder()
+                        .maximumSize(config.getMaximumSize())
+                        .expireAfterWrite(config.getTtl())
+                        .recordStats()
+                        .build()
+                : null;
+    }
+
+    DiscountResult get(String key, Function<String, DiscountResult> calculator) {
+        if (cache == null) return calculator.apply(key);
+        return cache.get(key, calculator);
+    }
+
+    DiscountResult getIfPresent(String key) {
+        return cache == null ? null : cache.getIfPresent(key);
+    }
+
+    void put(String key, DiscountResult result) {
+        if (cache != null) cache.put(key, result);
+    }
+
+    public CacheStats stats() {
+        return cache == null ? CacheStats.empty() : cache.stats();
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.estimatedSize();
+    }
+
+    public void clear() {
+        if (cache != null) cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache != null) CaffeineCacheMetrics.monitor(registry, cache, "discountResults");
+        Gauge.builder("discount.cache.hit.rate", this, c -> c.stats().hitRate())
+                .description("결과 캐시 적중률 (기동 후 누적)")
+                .register(registry);
+    }
+}
@@ -0,0 +1,98 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.domain.ProductItem;
+
+/**
+ * 상품 라인 1개의 자체 할인 규칙.
+ * discountType 문자열과 할인 값(Double)은 요청마다 한 번만 해석하고, 금액 계산은 종류(kind)와 정수 값으로만 한다.
+ * - fixed: 1개당 정액 할인
+ * - percent: 라인 전체 % 할인 (basis point, Money)
+ * - bundle: N개 사면 M개 무료 (N+M개 묶음마다 M개 금액 제외)
+ */
+final class LineDiscount {
+
+    static final byte NONE = 0;
+    static final byte FIXED = 1;
+    static final byte PERCENT = 2;
+    static final byte BUNDLE = 3;
+
+    private static final LineDiscount NO_DISCOUNT = new LineDiscount(NONE, 0, 0, 0, 0);
+
+    final byte kind;
+    private final long offPerUnit; // FIXED
+    private final long bp;         // PERCENT (0~10000 basis point)
+    private final int buy;         // BUNDLE
+    private final int free;
+
+    private LineDiscount(byte kind, long offPerUnit, long bp, int buy, int free) {
+        this.kind = kind;
+        this.offPerUnit = offPerUnit;
+        this.bp = bp;
+        this.buy = buy;
+        this.free = free;
+    }
+
+    static LineDiscount compile(ProductItem p) {
+        String type = p.getDiscountType() == null ? "none" : p.getDiscountType();
+        switch (type) {
+            case "fixed":
+                // 1개당 정액 할인 - 소수점 이하 절사
+                return new LineDiscount(FIXED, p.getDiscountValue() == null ? 0 : Math.max(0, p.getDiscountValue().longValue()), 0, 0, 0);
+            case "percent":
+                return new LineDiscount(PERCENT, 0, Money.bp(p.getDiscountValue()), 0, 0);
+            case "bundle": {
+                int buy = p.getBundleBuy() == null ? 0 : p.getBundleBuy();
+                int free = p.getBundleFree() == null ? 0 : p.getBundleFree();
+                if (buy <= 0 || free <= 0) return NO_DISCOUNT;
+                return new LineDiscount(BUNDLE, 0, 0, buy, free);
+            }
+            default:
+                return NO_DISCOUNT;
+        }
+    }
+
+    // 할인 적용 후 라인 금액 (0원 미만은 0원)
+    long apply(long price, long qty) {
+        long baseLine = price * qty;
+        switch (kind) {
+            case FIXED:
+                return Math.max(0, baseLine - offPerUnit * qty);
+            case PERCENT:
+                // 할인 후 금액(라인 전체의 100 - pct%)을 원 단위 절사
+                return Money.percentOf(Math.max(0, baseLine), Money.FULL_BP - bp);
+            case BUNDLE:
+                return price * (qty - qty / (buy + free) * free);
+            default:
+                return baseLine;
+        }
+    }
+
+    // 캐시 키: 계산에 쓰는 정규화된 값만 (종류 + 정수 값)
+    String key() {
+        return kind + ":" + offPerUnit + ":" + bp + ":" + buy + ":" + free;
+    }
+
+    /**
+     * 수량 분할 단위: 라인을 이 수량의 배수로 나누면 나눈 라인 금액의 합이 원래 라인 금액과 같다.
+     * - percent: 단위 금액이 원 단위로 떨어지는 최소 수량 (절사가 주문마다 따로 일어나지 않도록)
+     * - bundle: N+M개 묶음 (묶음을 깨면 무료 수량이 줄어듦)
+     */
+    int splitUnit(long price) {
+        switch (kind) {
+            case PERCENT: {
+                // price x g x (10000 - bp)가 10000의 배수가 되는 최소 g
+                long a = price * (Money.FULL_BP - bp) % Money.FULL_BP, b = Money.FULL_BP;
+                while (a != 0) {
+                    long t = b % a;
+                    b = a;
+                    a = t;
+                }
+                return (int) (Money.FULL_BP / b);
+            }
+            case BUNDLE:
+                return buy + free;
+            default:
+                return 1;
+        }
+    }
+}
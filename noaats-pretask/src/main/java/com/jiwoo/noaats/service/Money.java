@@ -0,0 +1,31 @@
+package com.jiwoo.noaats.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 금액 계산 규칙 (고정 소수점).
+ * 금액은 long 원 단위, 정률 값은 basis point(0.01% = 1, 100% = 10000)로 요청 경계에서 한 번만 바꾸고,
+ * 계산은 정수 연산만 쓴다. 퍼센트 금액은 원 단위 절사(버림).
+ * double로 계산하면 100 x 29% = 28.999...처럼 1원 모자라게 절사되는 경우가 있어 쓰지 않는다.
+ */
+final class Money {
+
+    static final long FULL_BP = 10_000; // 100%
+
+    private Money() {
+    }
+
+    // 입력 % 값 → basis point. 0~100%로 제한하고, 0.01%보다 작은 자리는 입력한 10진수 그대로 반올림(HALF_UP)
+    // (percent x 100을 double로 하면 1.005%가 100.4999...로 내려가 100bp가 된다)
+    static long bp(Double percent) {
+        if (percent == null || !(percent > 0)) return 0;
+        if (percent >= 100) return FULL_BP;
+        return BigDecimal.valueOf(percent).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    // floor(amount x bp / 10000), amount >= 0. 곱셈이 넘치지 않도록 10000 단위로 나눠 계산
+    static long percentOf(long amount, long bp) {
+        return amount / FULL_BP * bp + amount % FULL_BP * bp / FULL_BP;
+    }
+}
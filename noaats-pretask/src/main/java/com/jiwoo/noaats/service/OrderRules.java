@@ -0,0 +1,302 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.PromoTier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 주문 1건 할인 규칙 (요청마다 한 번 컴파일).
+ *
+ * 쿠폰 option(0 = 미사용)마다 적용할 규칙을 순서대로 평평한 배열에 담아 두고,
+ * 주문 금액은 그 구간의 규칙을 차례로 적용한 뒤 배송비를 더해 계산한다.
+ * 프로모션/쿠폰 적용 순서는 규칙 배열의 순서로만 정해지고, 규칙 종류는 byte로 구분하므로
+ * 탐색 루프에서는 쿠폰 문자열 비교나 인터페이스 호출 없이 switch 하나로 끝난다.
+ * 새 규칙 종류는 kind 상수 + apply/thresholds 분기만 추가하면 된다.
+ *
+ * 모든 규칙은 다음 조건을 지켜야 한다 (SplitOptimizer / orderBreakpoints가 의존).
+ * - 주문의 상품 합계만으로 금액이 정해진다
+ * - 조건 금액(thresholds) 사이에서는 단조 비감소이고, 1원 늘 때 최대 1원 늘어난다
+ */
+final class OrderRules implements SplitOptimizer.OrderCost {
+
+    static final byte PROMO = 0;          // 금액대 할인: 도달한 구간 중 가장 큰 할인
+    static final byte COUPON_FIXED = 1;   // 정액 쿠폰
+    static final byte COUPON_PERCENT = 2; // 정률 쿠폰 (캡 적용)
+
+    private final int[] start;       // option별 규칙 구간 [start[o], start[o + 1])
+    private final byte[] kind;
+    private final long[] minSpend;   // 쿠폰 최소 사용 금액
+    private final long[] off;        // 정액 쿠폰 할인액
+    private final long[] bp;         // 정률 쿠폰 basis point (0~10000, Money)
+    private final long[] cap;        // 정률 쿠폰 한도 (0 = 없음)
+
+    private final long[] tierAmount; // 금액대 할인 조건 금액 (오름차순)
+    private final long[] tierOff;    // 그 금액 이상일 때 할인액 (누적 최대)
+
+    private final long shippingFee;
+    private final long freeShip;     // 0이면 무료배송 없음
+
+    // lowerBound용: 어떤 쿠폰 선택지로도 넘을 수 없는 할인 상한
+    private final long maxFixedOff;  // 정액 쿠폰 최대 할인액
+    private final long maxBp;        // 정률 쿠폰 최대 basis point
+    private final long maxPctCap;    // 정률 쿠폰 최대 한도 (한도 없는 쿠폰이 있으면 Long.MAX_VALUE)
+
+    // couponOptions: 0번은 미사용(null)
+    OrderRules(List<Coupon> couponOptions, long[][] tiers, boolean promoBeforeCoupon,
+               long shippingFee, long freeShip) {
+        this(couponOptions.stream().skip(1).map(CouponRule::of).toArray(CouponRule[]::new),
+                tiers, promoBeforeCoupon, shippingFee, freeShip);
+    }
+
+    // coupons: 쿠폰 규칙 (option = 위치 + 1, null이면 효과 없음)
+    OrderRules(CouponRule[] coupons, long[][] tiers, boolean promoBeforeCoupon,
+               long shippingFee, long freeShip) {
+        int m = coupons.length + 1;
+        this.tierAmount = tiers[0];
+        this.tierOff = tiers[1];
+        this.shippingFee = shippingFee;
+        this.freeShip = freeShip;
+
+        boolean promo = tierAmount.length > 0;
+        int capacity = m * 2;
+        this.start = new int[m + 1];
+        this.kind = new byte[capacity];
+        this.minSpend = new long[capacity];
+        this.off = new long[capacity];
+        this.bp = new long[capacity];
+        this.cap = new long[capacity];
+
+        int size = 0;
+        for (int o = 0; o < m; o++) {
+            start[o] = size;
+            if (promo && promoBeforeCoupon) kind[size++] = PROMO;
+            if (o > 0 && compileCoupon(size, coupons[o - 1])) size++;
+            if (promo && !promoBeforeCoupon) kind[size++] = PROMO;
+        }
+        start[m] = size;
+
+        long fixedOff = 0, pctCap = 0, maxBp = 0;
+        for (int i = 0; i < size; i++) {
+            if (kind[i] == COUPON_FIXED) {
+                fixedOff = Math.max(fixedOff, off[i]);
+            } else if (kind[i] == COUPON_PERCENT && bp[i] > 0) {
+                maxBp = Math.max(maxBp, bp[i]);
+                pctCap = cap[i] > 0 ? Math.max(pctCap, cap[i]) : Long.MAX_VALUE;
+            }
+        }
+        this.maxFixedOff = fixedOff;
+        this.maxBp = maxBp;
+        this.maxPctCap = pctCap;
+    }
+
+    // 쿠폰 1장 → 규칙 1개. 효과 없는 종류면 false
+    private boolean compileCoupon(int i, CouponRule rule) {
+        if (rule == null) return false;
+        kind[i] = rule.kind;
+        minSpend[i] = rule.minSpend;
+        off[i] = rule.off;
+        bp[i] = rule.bp;
+        cap[i] = rule.cap;
+        return true;
+    }
+
+    /**
+     * 금액대 할인 구간: 기본 조건(thresholdAmount/thresholdOff) + 추가 구간.
+     * 금액/할인이 0 이하인 구간은 버리고, 조건 금액 오름차순으로 "그 금액 이상이면 받는 최대 할인"을 만든다.
+     * @return {조건 금액[], 할인액[]}
+     */
+    static long[][] tiers(int thAmount, int thOff, List<PromoTier> extra) {
+        List<long[]> valid = new ArrayList<>();
+        if (thAmount > 0 && thOff > 0) valid.add(new long[]{thAmount, thOff});
+        if (extra != null) {
+            for (PromoTier t : extra) {
+                if (t == null || t.getAmount() == null || t.getOff() == null) continue;
+                if (t.getAmount() > 0 && t.getOff() > 0) valid.add(new long[]{t.getAmount(), t.getOff()});
+            }
+        }
+        valid.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        long[] amount = new long[valid.size()];
+        long[] off = new long[valid.size()];
+        int size = 0;
+        long best = 0;
+        for (long[] t : valid) {
+            best = Math.max(best, t[1]);
+            // 같은 조건 금액이면 큰 할인만 남긴다
+            if (size > 0 && amount[size - 1] == t[0]) size--;
+            // 할인이 늘지 않는 구간은 의미 없음
+            if (size > 0 && off[size - 1] == best) continue;
+            amount[size] = t[0];
+            off[size] = best;
+            size++;
+        }
+        return new long[][]{Arrays.copyOf(amount, size), Arrays.copyOf(off, size)};
+    }
+
+    /* ------------------------
+       평가
+       ------------------------ */
+    @Override
+    public long total(long merch, int option) {
+        long amount = merch;
+        for (int i = start[option], end = start[option + 1]; i < end; i++) {
+            amount = apply(i, amount);
+        }
+        return amount + shipping(amount);
+    }
+
+    /*
+     * 모든 option에 대한 total(merch, option)의 하한 (O(1)).
+     * 할인 후 금액은 merch를 넘지 않으므로
+     * - 금액대 할인은 merch가 첫 구간에 못 미치면 0, 아니면 최대 구간 할인 이하
+     * - 쿠폰 할인은 max(최대 정액, min(최대 한도, merch x 최대 %)) 이하
+     * - merch가 무료배송 기준 미만이면 배송비는 반드시 붙는다
+     */
+    long lowerBound(long merch) {
+        long promoOff = (tierAmount.length > 0 && merch >= tierAmount[0]) ? tierOff[tierOff.length - 1] : 0;
+        long couponOff = Math.max(maxFixedOff, Math.min(maxPctCap, Money.percentOf(merch, maxBp)));
+        long ship = (freeShip > 0 && merch >= freeShip) ? 0 : shippingFee;
+        return Math.max(0, merch - promoOff - couponOff) + ship;
+    }
+
+    /*
+     * 상품 합계 merch를 최대 orders건으로 나눈 어떤 분할의 총 결제도 이보다 작을 수 없는 하한 (탐색을 끝내지 못했을 때 차이 보고용).
+     * - 금액대 할인은 첫 구간 금액을 채운 주문 수(merch / 첫 구간 금액, 최대 orders)만큼 최대 구간 할인
+     * - 쿠폰은 주문마다 1장: 쿠폰별 최대 할인 상위 orders장 합 (같은 쿠폰 제한은 무시해 더 느슨하게)
+     * - merch가 무료배송 기준 미만이면 어느 주문도 무료배송이 될 수 없으므로 배송비 1번 이상
+     */
+    long planLowerBound(long merch, int orders) {
+        return planLowerBound(merch, merch, orders);
+    }
+
+    /*
+     * 분할마다 상품 합계가 minMerch~maxMerch로 달라질 때(수량 단위 분할, QuantitySplit) 그 범위 전부에 성립하는 하한.
+     * 할인은 합계가 클수록 커지고 배송비는 작아지므로 maxMerch 기준으로, 상품 금액만 minMerch로 잡는다.
+     */
+    long planLowerBound(long minMerch, long maxMerch, int orders) {
+        long promoOff = tierAmount.length == 0 ? 0
+                : Math.min(orders, maxMerch / tierAmount[0]) * tierOff[tierOff.length - 1];
+
+        long[] couponOff = new long[options()];
+        for (int o = 1; o < couponOff.length; o++) {
+            for (int i = start[o]; i < start[o + 1]; i++) {
+                if (kind[i] == COUPON_FIXED) couponOff[o] = off[i];
+                else if (kind[i] == COUPON_PERCENT) {
+                    long pctOff = Money.percentOf(maxMerch, bp[i]);
+                    couponOff[o] = cap[i] > 0 ? Math.min(pctOff, cap[i]) : pctOff;
+                }
+            }
+        }
+        Arrays.sort(couponOff);
+        long couponTotal = 0;
+        for (int k = 0; k < orders && k < couponOff.length; k++) couponTotal += couponOff[couponOff.length - 1 - k];
+
+        long ship = (freeShip > 0 && maxMerch >= freeShip) ? 0 : shippingFee;
+        return Math.max(0, minMerch - promoOff - couponTotal) + ship;
+    }
+
+    long shipping(long amount) {
+        return (freeShip > 0 && amount >= freeShip) ? 0 : shippingFee;
+    }
+
+    // 쿠폰 선택지 수 (0번 = 미사용 포함)
+    int options() {
+        return start.length - 1;
+    }
+
+    // 상세 계산용: option의 규칙 위치
+    int first(int option) {
+        return start[option];
+    }
+
+    int end(int option) {
+        return start[option + 1];
+    }
+
+    boolean isPromo(int rule) {
+        return kind[rule] == PROMO;
+    }
+
+    // 규칙 조건(금액대 하한 / 쿠폰 최소 사용 금액)을 충족하는지
+    boolean reached(int rule, long amount) {
+        if (kind[rule] == PROMO) return amount >= tierAmount[0];
+        return amount >= minSpend[rule];
+    }
+
+    long apply(int rule, long amount) {
+        switch (kind[rule]) {
+            case PROMO: {
+                for (int t = tierAmount.length - 1; t >= 0; t--) {
+                    if (amount >= tierAmount[t]) return Math.max(0, amount - tierOff[t]);
+                }
+                return amount;
+            }
+            case COUPON_FIXED:
+                if (amount < minSpend[rule]) return amount; // 조건 미달이면 미적용
+                return Math.max(0, amount - off[rule]);
+            case COUPON_PERCENT: {
+                if (amount < minSpend[rule]) return amount;
+                // 퍼센트 할인은 원 단위 절사
+                long discount = Money.percentOf(amount, bp[rule]);
+                if (cap[rule] > 0) discount = Math.min(discount, cap[rule]);
+                return Math.max(0, amount - discount);
+            }
+            default:
+                return amount;
+        }
+    }
+
+    /* ------------------------
+       감소 지점
+       ------------------------ */
+
+    /*
+     * total(x, option)이 감소할 수 있는 지점(오름차순).
+     * 각 규칙(과 배송비)은 자기 조건 금액을 넘는 순간에만 금액이 줄고 그 외에는 단조 비감소이므로,
+     * 앞 규칙까지 적용한 금액이 조건 금액에 처음 도달하는 x를 구간별 이분 탐색으로 찾는다.
+     */
+    @Override
+    public long[] breakpoints(int option, long maxMerch) {
+        TreeSet<Long> cuts = new TreeSet<>();
+        cuts.add(0L);
+        int from = start[option], to = start[option + 1];
+        for (int k = from; k <= to; k++) {
+            // k == to: 배송비
+            long[] thresholds = k < to ? thresholds(k)
+                    : (freeShip > 0 && shippingFee > 0 ? new long[]{freeShip} : new long[0]);
+            for (long threshold : thresholds) {
+                List<Long> starts = new ArrayList<>(cuts);
+                for (int i = 0; i < starts.size(); i++) {
+                    long lo = starts.get(i);
+                    long hi = i + 1 < starts.size() ? starts.get(i + 1) - 1 : maxMerch;
+                    long x = firstAtLeast(from, k, threshold, lo, hi);
+                    if (x > lo && x <= hi) cuts.add(x);
+                }
+            }
+        }
+        cuts.remove(0L);
+        return cuts.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long[] thresholds(int rule) {
+        if (kind[rule] == PROMO) return tierAmount;
+        return minSpend[rule] > 0 ? new long[]{minSpend[rule]} : new long[0];
+    }
+
+    // [lo, hi]에서 규칙 [from, to)까지 적용한 금액이 target 이상이 되는 가장 작은 x (없으면 hi + 1)
+    private long firstAtLeast(int from, int to, long target, long lo, long hi) {
+        long left = lo, right = hi + 1;
+        while (left < right) {
+            long mid = left + (right - left) / 2;
+            long amount = mid;
+            for (int i = from; i < to; i++) amount = apply(i, amount);
+            if (amount >= target) right = mid;
+            else left = mid + 1;
+        }
+        return left;
+    }
+}
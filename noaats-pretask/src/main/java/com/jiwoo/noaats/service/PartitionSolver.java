@@ -0,0 +1,255 @@
+package com.jiwoo.noaats.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * K주문 분할 최적화 (부분집합 DP).
+ *
+ * 주문은 상품 라인 집합(mask) + 쿠폰 최대 1장이고, 같은 쿠폰(이름 기준 묶음)은 한 번만 쓸 수 있다.
+ * 쿠폰 묶음을 하나씩 처리하며 "쓰지 않음 / 어떤 주문(부분집합)에 사용"을 고르는 DP로,
+ * 사용한 쿠폰 집합을 상태로 들고 다니지 않아도 중복 사용이 생기지 않는다.
+ * - best[k][mask]: mask를 주문 k건으로 나눈 최소 금액
+ * - 시작값은 쿠폰 없는 주문만으로 나눈 금액 (가장 낮은 비트를 포함하는 주문부터 떼어 순서 중복 제거)
+ * - 쿠폰 묶음 g를 처리하면 best[k][mask] = min(그대로, best[k - 1][mask - S] + cost(S, g))
+ * 계산량은 (쿠폰 묶음 수 + 1) x K x 3^N.
+ */
+final class PartitionSolver {
+
+    private static final long INF = Long.MAX_VALUE / 4;
+
+    static final class Result {
+        final long totalPay;
+        final long[] masks;  // 주문별 라인 (bit i = 라인 i), 가장 낮은 라인 순
+        final int[] options; // 주문별 쿠폰 option (0 = 미사용)
+
+        Result(long totalPay, long[] masks, int[] options) {
+            this.totalPay = totalPay;
+            this.masks = masks;
+            this.options = options;
+        }
+    }
+
+    private final long[] lines;
+    private final SplitOptimizer.OrderCost cost;
+    private final int options;
+    private final int[] group; // 같은 쿠폰(이름 기준) 묶음. option 0은 -1
+    private final int minOrders;
+    private final int maxOrders;
+
+    // solve가 시간 예산으로 중간에 멈췄는지 (그때 결과는 null, solve 후 읽음)
+    boolean timedOut;
+
+    PartitionSolver(long[] lines, SplitOptimizer.OrderCost cost, boolean[][] conflict, int minOrders, int maxOrders) {
+        if (lines.length >= Integer.SIZE - 1) {
+            throw new IllegalArgumentException("부분집합 DP는 상품 " + (Integer.SIZE - 2) + "개까지만 지원합니다.");
+        }
+        this.lines = lines;
+        this.cost = cost;
+        this.options = conflict.length;
+        this.minOrders = Math.max(1, minOrders);
+        this.maxOrders = maxOrders;
+
+        this.group = new int[options];
+        group[0] = -1;
+        for (int a = 1; a < options; a++) {
+            group[a] = a;
+            for (int b = 1; b < a; b++) {
+                if (conflict[a][b]) {
+                    group[a] = group[b];
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return minOrders~maxOrders건 분할 중 최적. 상품 수가 minOrders보다 적으면 null
+     */
+    Result solve() {
+        return solve(Deadline.NONE);
+    }
+
+    // 주문 수 / 쿠폰 묶음 / 쿠폰 부분집합 단위로 시간 예산을 확인한다
+    Result solve(Deadline deadline) {
+        int n = lines.length;
+        int maxK = Math.min(maxOrders, n);
+        if (n < minOrders || maxK < minOrders) return null;
+
+        int size = 1 << n;
+        int full = size - 1;
+
+        long[] merch = new long[size];
+        for (int mask = 1; mask < size; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            merch[mask] = merch[mask & (mask - 1)] + lines[low];
+        }
+
+        long[] costNone = new long[size];
+        for (int mask = 1; mask < size; mask++) {
+            costNone[mask] = cost.total(merch[mask], 0);
+        }
+
+        // 1) 쿠폰 없는 주문만으로 나누기
+        long[][] best = new long[maxK + 1][size];
+        int[][] noneChoice = new int[maxK + 1][size];
+        for (long[] row : best) Arrays.fill(row, INF);
+        best[0][0] = 0;
+        for (int k = 1; k <= maxK; k++) {
+            if (timedOut(deadline)) return null;
+            for (int mask = 1; mask < size; mask++) {
+                int low = mask & -mask;
+                int rest = mask ^ low;
+                long bestValue = INF;
+                int bestPart = 0;
+                for (int sub = rest; ; sub = (sub - 1) & rest) {
+                    int part = sub | low;
+                    long prev = best[k - 1][mask ^ part];
+                    if (prev < INF) {
+                        long value = prev + costNone[part];
+                        if (value < bestValue) {
+                            bestValue = value;
+                            bestPart = part;
+                        }
+                    }
+                    if (sub == 0) break;
+                }
+                best[k][mask] = bestValue;
+                noneChoice[k][mask] = bestPart;
+            }
+        }
+
+        // 2) 쿠폰 묶음별 부분집합 금액: 같은 묶음 안에서는 가장 싼 쿠폰을 쓰고, 미사용보다 나을 때만 후보
+        int[] leaders = new int[options];
+        int groups = 0;
+        for (int g = 1; g < options; g++) {
+            if (group[g] == g) leaders[groups++] = g;
+        }
+        long[][] costG = new long[groups][size];
+        int[][] optionG = new int[groups][size];
+        for (int gi = 0; gi < groups; gi++) {
+            int g = leaders[gi];
+            for (int mask = 1; mask < size; mask++) {
+                costG[gi][mask] = INF;
+                for (int o = g; o < options; o++) {
+                    if (group[o] != g) continue;
+                    long c = cost.total(merch[mask], o);
+                    if (c < costG[gi][mask]) {
+                        costG[gi][mask] = c;
+                        optionG[gi][mask] = o;
+                    }
+                }
+            }
+        }
+
+        // 부분집합마다 싼 순서로 maxK개 묶음만 후보로 둔다.
+        // 다른 주문들은 묶음을 최대 maxK - 1개 쓰므로 상위 maxK개 중 하나는 항상 비어 있고, 그걸로 바꿔도 손해가 없다.
+        int[][] parts = new int[groups][size];
+        int[] partCount = new int[groups];
+        int[] top = new int[maxK];
+        for (int mask = 1; mask < size; mask++) {
+            int count = 0;
+            for (int gi = 0; gi < groups; gi++) {
+                long c = costG[gi][mask];
+                if (c >= costNone[mask]) continue;
+                if (count == maxK && c >= costG[top[count - 1]][mask]) continue;
+                int pos = count < maxK ? count++ : count - 1;
+                while (pos > 0 && costG[top[pos - 1]][mask] > c) {
+                    top[pos] = top[pos - 1];
+                    pos--;
+                }
+                top[pos] = gi;
+            }
+            for (int i = 0; i < count; i++) {
+                parts[top[i]][partCount[top[i]]++] = mask;
+            }
+        }
+
+        // 3) 쿠폰 묶음별로 "미사용 / 한 주문에 사용"을 고른다
+        List<int[]> groupChoices = new ArrayList<>();
+        List<int[]> groupOptions = new ArrayList<>();
+        for (int gi = 0; gi < groups; gi++) {
+            if (partCount[gi] == 0) continue;
+            if (timedOut(deadline)) return null;
+
+            // 쿠폰을 쓸 부분집합(part)마다 나머지 라인의 부분집합과 합친다.
+            // 최소 주문금액 때문에 후보 part가 적으면 3^N보다 훨씬 적게 돈다.
+            // k 내림차순으로 갱신하면 best[k - 1]은 아직 이번 묶음을 쓰지 않은 값
+            // 역추적용 선택 기록은 [k * size + mask] 한 배열로 보관
+            int[] choice = new int[(maxK + 1) * size];
+            for (int k = maxK; k >= 1; k--) {
+                long[] cur = best[k];
+                long[] prev = best[k - 1];
+                for (int i = 0; i < partCount[gi]; i++) {
+                    if ((i & 63) == 63 && timedOut(deadline)) return null;
+                    int part = parts[gi][i];
+                    long c = costG[gi][part];
+                    int free = full ^ part;
+                    for (int rest = free; ; rest = (rest - 1) & free) {
+                        long before = prev[rest];
+                        if (before < INF) {
+                            int mask = rest | part;
+                            long value = before + c;
+                            if (value < cur[mask]) {
+                                cur[mask] = value;
+                                choice[k * size + mask] = part;
+                            }
+                        }
+                        if (rest == 0) break;
+                    }
+                }
+            }
+            groupChoices.add(choice);
+            groupOptions.add(optionG[gi]);
+        }
+
+        // 금액이 같으면 주문 수가 적은 쪽 우선
+        int bestK = -1;
+        for (int k = minOrders; k <= maxK; k++) {
+            if (best[k][full] < INF && (bestK < 0 || best[k][full] < best[bestK][full])) bestK = k;
+        }
+        if (bestK < 0) return null;
+
+        // 4) 역추적: 마지막 쿠폰 묶음부터 사용한 부분집합을 떼어 낸다
+        long[] masks = new long[bestK];
+        int[] chosen = new int[bestK];
+        int count = 0;
+        int mask = full;
+        int k = bestK;
+        for (int g = groupChoices.size() - 1; g >= 0; g--) {
+            int part = groupChoices.get(g)[k * size + mask];
+            if (part == 0) continue;
+            masks[count] = part;
+            chosen[count] = groupOptions.get(g)[part];
+            count++;
+            mask ^= part;
+            k--;
+        }
+        while (k > 0) {
+            int part = noneChoice[k][mask];
+            masks[count] = part;
+            chosen[count] = 0;
+            count++;
+            mask ^= part;
+            k--;
+        }
+
+        // 표시 순서: 가장 낮은 라인 기준
+        Integer[] order = new Integer[bestK];
+        for (int i = 0; i < bestK; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> Long.compare(Long.lowestOneBit(masks[x]), Long.lowestOneBit(masks[y])));
+        long[] sortedMasks = new long[bestK];
+        int[] sortedOptions = new int[bestK];
+        for (int i = 0; i < bestK; i++) {
+            sortedMasks[i] = masks[order[i]];
+            sortedOptions[i] = chosen[order[i]];
+        }
+        return new Result(best[bestK][full], sortedMasks, sortedOptions);
+    }
+
+    private boolean timedOut(Deadline deadline) {
+        if (deadline.passed()) timedOut = true;
+        return timedOut;
+    }
+}
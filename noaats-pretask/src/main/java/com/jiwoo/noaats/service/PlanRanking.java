@@ -0,0 +1,171 @@
+package com.jiwoo.noaats.service;
+
+import java.util.Arrays;
+
+/**
+ * 전략(주문 수 + 사용 쿠폰)별 최저 금액 표. 대안 전략을 최적 탐색과 같은 평가에서 함께 모은다.
+ *
+ * 칸은 같은 쿠폰 묶음의 대표 option g(o)로 정한다: 1주문 → g(o), 2주문 {a, b} → options + min x options + max (g 기준).
+ * 같은 쿠폰끼리나 A/B를 바꾼 것은 같은 전략이므로 한 칸이고, 칸마다 가장 싼 분할(mask)과 그때의 A/B 쿠폰을 남긴다.
+ * 같은 금액이면 (mask, A쿠폰)이 작은 쪽을 남겨 평가 순서(병렬 구간)와 무관하게 같은 결과가 된다.
+ *
+ * limit(): 금액이 이 값 이상인 후보는 남길 결과를 바꾸지 못한다. 탐색은 이 값과 기존 최적 기준을 함께 보고 건너뛴다.
+ * - 가장 싼 top + 1개 전략(추천 + 대안 top개) 중 가장 비싼 금액까지
+ * - 지금 가장 싼 전략이 쓰는 쿠폰마다, 그 쿠폰 없이 가장 싼 금액까지 (다른 쿠폰은 지금 가장 싼 전략이 답)
+ * - 쿠폰 없이 한 번에 사는 금액(0번 칸) 미만: 그보다 비싼 분할은 대안으로 의미가 없다
+ * 남길 결과의 금액은 언제나 limit 미만이므로, 건너뛰는 후보 때문에 결과(같은 금액의 선택 포함)가 달라지지 않는다.
+ */
+final class PlanRanking {
+
+    private final int options;
+    private final int top;
+    private final boolean[][] conflict;
+    private final int[] group; // option → 같은 쿠폰 묶음의 대표 option
+
+    final long[] total; // 칸별 최저 금액 (없으면 Long.MAX_VALUE)
+    final long[] mask;  // 2주문: A 주문 라인
+    final int[] optionA;
+    final int[] optionB;
+
+    private long limit = Long.MAX_VALUE;
+    private final long[] scratch;
+
+    PlanRanking(int options, int top, boolean[][] conflict) {
+        this.options = options;
+        this.top = top;
+        this.conflict = conflict;
+        this.group = new int[options];
+        for (int o = 0; o < options; o++) {
+            group[o] = o;
+            for (int y = 1; y < o; y++) {
+                if (conflict[y][o]) {
+                    group[o] = y;
+                    break;
+                }
+            }
+        }
+        int slots = options + options * options;
+        this.total = new long[slots];
+        this.mask = new long[slots];
+        this.optionA = new int[slots];
+        this.optionB = new int[slots];
+        this.scratch = new long[slots];
+        Arrays.fill(total, Long.MAX_VALUE);
+    }
+
+    // 같은 시작 상태의 복사본 (병렬 구간용)
+    PlanRanking copy() {
+        PlanRanking c = new PlanRanking(options, top, conflict);
+        c.merge(this);
+        return c;
+    }
+
+    long limit() {
+        return limit;
+    }
+
+    int top() {
+        return top;
+    }
+
+    boolean isPair(int slot) {
+        return slot >= options;
+    }
+
+    // 1주문 쿠폰 option o (0번을 가장 먼저)
+    void single(int o, long t, long fullMask) {
+        put(group[o], t, fullMask, o, -1);
+    }
+
+    // 2주문 (A 라인 m, A/B 쿠폰 a/b)
+    void pair(long t, long m, int a, int b) {
+        if (t >= limit) return;
+        int ga = group[a], gb = group[b];
+        put(options + Math.min(ga, gb) * options + Math.max(ga, gb), t, m, a, b);
+    }
+
+    // 다른 표의 칸을 합친다 (칸마다 더 나은 쪽)
+    void merge(PlanRanking other) {
+        boolean changed = false;
+        for (int s = 0; s < total.length; s++) {
+            if (other.total[s] == Long.MAX_VALUE || !better(other.total[s], other.mask[s], other.optionA[s], s)) continue;
+            total[s] = other.total[s];
+            mask[s] = other.mask[s];
+            optionA[s] = other.optionA[s];
+            optionB[s] = other.optionB[s];
+            changed = true;
+        }
+        if (changed) refresh();
+    }
+
+    // 칸 s의 전략이 쿠폰 option x(같은 쿠폰 포함)를 쓰는지
+    boolean uses(int s, int x) {
+        return usesOption(optionA[s], x) || (isPair(s) && usesOption(optionB[s], x));
+    }
+
+    boolean usesOption(int o, int x) {
+        return o > 0 && (o == x || conflict[o][x]);
+    }
+
+    // 같은 쿠폰 묶음의 대표 option (가장 앞 option, 0번은 0)
+    int group(int o) {
+        return group[o];
+    }
+
+    // 칸 s의 전략 식별값
+    String signature(int s) {
+        return isPair(s) ? signature(2, optionA[s], optionB[s]) : signature(1, optionA[s]);
+    }
+
+    // 주문 수 + 사용 쿠폰 묶음 (순서 무관)
+    String signature(int orders, int... used) {
+        int[] groups = new int[used.length];
+        for (int i = 0; i < used.length; i++) groups[i] = group(used[i]);
+        Arrays.sort(groups);
+        return orders + ":" + Arrays.toString(groups);
+    }
+
+    private void put(int s, long t, long m, int a, int b) {
+        if (!better(t, m, a, s)) return;
+        total[s] = t;
+        mask[s] = m;
+        optionA[s] = a;
+        optionB[s] = b;
+        if (t < limit) refresh();
+    }
+
+    private boolean better(long t, long m, int a, int s) {
+        if (t != total[s]) return t < total[s];
+        return m != mask[s] ? m < mask[s] : a < optionA[s];
+    }
+
+    private void refresh() {
+        int size = 0;
+        int best = -1;
+        for (int s = 0; s < total.length; s++) {
+            if (total[s] == Long.MAX_VALUE) continue;
+            scratch[size++] = total[s];
+            if (best < 0 || total[s] < total[best]) best = s;
+        }
+        long cap = total[0];
+        if (size <= top) {
+            limit = cap;
+            return;
+        }
+        Arrays.sort(scratch, 0, size);
+        long kept = scratch[top];
+        for (int x = 1; x < options; x++) {
+            if (uses(best, x)) kept = Math.max(kept, without(x));
+        }
+        limit = Math.min(cap, kept + 1);
+    }
+
+    // 쿠폰 option x를 쓰지 않는 칸 중 최저 금액
+    private long without(int x) {
+        long min = Long.MAX_VALUE;
+        for (int s = 0; s < total.length; s++) {
+            if (total[s] < min && !uses(s, x)) min = total[s];
+        }
+        return min;
+    }
+}
@@ -0,0 +1,133 @@
+package com.jiwoo.noaats.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 2주문 수량 단위 분할용 품목 (라인 → 0/1 품목).
+ *
+ * 라인을 금액이 수량에 정확히 비례하는 단위(LineDiscount.splitUnit)로 나누고,
+ * 같은 단위 c개는 1, 2, 4, ... 개 묶음으로 쪼갠다(이진 분할, 품목 log c개로 0~c개 전부 표현).
+ * 이렇게 나누면 A/B 주문 상품 합계의 합이 항상 원래 합계와 같으므로
+ * 라인 단위와 같은 부분합 탐색(SplitOptimizer)을 품목에 그대로 쓴다.
+ * - 단위로 나누고 남는 수량: percent는 한 덩어리, bundle은 낱개(묶음 밖이라 무료 없음)
+ *
+ * 그래서 단위 중간에서 자르는 분할(percent는 주문마다 따로 절사, bundle은 묶음을 깨서 무료 수량이 줄어듦)은
+ * 품목 조합으로 나타낼 수 없다(complete = false). 이런 분할은 A/B 합계의 합이 원래 합계와 달라지지만
+ * 라인마다 percent는 1원 이하로 줄고 bundle은 묶음 1개의 무료분 이하로 늘어나므로 그 범위(minTotal~maxTotal)로 하한을 잡는다.
+ */
+final class QuantitySplit {
+
+    final long[] weights; // 품목 금액 (상품할인 후)
+    final int[] line;     // 품목의 라인
+    final int[] units;    // 품목의 수량
+    final int[] quantity; // 라인별 수량
+    final boolean complete; // 모든 수량 분할을 품목 조합으로 나타낼 수 있는지
+    final long minTotal;    // 수량 분할 A/B 합계의 합 범위 (complete면 둘 다 원래 합계)
+    final long maxTotal;
+
+    private QuantitySplit(long[] weights, int[] line, int[] units, int[] quantity,
+                          boolean complete, long minTotal, long maxTotal) {
+        this.weights = weights;
+        this.line = line;
+        this.units = units;
+        this.quantity = quantity;
+        this.complete = complete;
+        this.minTotal = minTotal;
+        this.maxTotal = maxTotal;
+    }
+
+    static QuantitySplit of(CartInputs inputs) {
+        int n = inputs.products();
+        Builder b = new Builder(n);
+        for (int i = 0; i < n; i++) {
+            long price = inputs.price[i];
+            int qty = inputs.quantity[i];
+            b.quantity[i] = qty;
+
+            LineDiscount discount = inputs.discount[i];
+            int g = discount.splitUnit(price);
+            b.add(i, g, discount.apply(price, g), qty / g);
+
+            int rest = qty % g;
+            // 품목으로 만들 수 있는 A 수량: 단위 배수 + (percent: 0 또는 남는 수량, bundle: 남는 낱개 0~rest개)
+            boolean covered = g == 1 || qty < 2
+                    || (discount.kind == LineDiscount.BUNDLE ? qty < g || rest == g - 1 : g == 2 && rest == 1);
+            if (!covered) {
+                b.complete = false;
+                if (discount.kind == LineDiscount.BUNDLE) b.extra += price * g - discount.apply(price, g);
+                else b.loss++;
+            }
+            if (rest == 0) continue;
+            if (discount.kind == LineDiscount.BUNDLE) {
+                b.add(i, 1, discount.apply(price, 1), rest);
+            } else {
+                b.add(i, rest, discount.apply(price, rest), 1);
+            }
+        }
+        return b.build();
+    }
+
+    // 라인 하나라도 둘 이상의 품목으로 나뉘었는지 (아니면 라인 단위 분할과 같음)
+    boolean splitsLines() {
+        return weights.length > quantity.length;
+    }
+
+    // 라인별 A 수량을 0~수량 전부 고르는 조합 수 (limit을 넘으면 limit + 1)
+    long cuts(long limit) {
+        long cuts = 1;
+        for (int q : quantity) {
+            cuts *= q + 1L;
+            if (cuts > limit) return limit + 1;
+        }
+        return cuts;
+    }
+
+    // A 주문 품목 → 라인별 A 수량
+    int[] quantitiesA(BitSet itemsA) {
+        int[] qty = new int[quantity.length];
+        for (int k = itemsA.nextSetBit(0); k >= 0; k = itemsA.nextSetBit(k + 1)) {
+            qty[line[k]] += units[k];
+        }
+        return qty;
+    }
+
+    private static final class Builder {
+        final int[] quantity;
+        long[] weights = new long[16];
+        int[] line = new int[16];
+        int[] units = new int[16];
+        int size;
+        boolean complete = true;
+        long loss;  // 품목으로 나타낼 수 없는 분할에서 합계가 줄 수 있는 최대 (percent 절사)
+        long extra; // 늘 수 있는 최대 (bundle 무료분)
+
+        Builder(int lines) {
+            this.quantity = new int[lines];
+        }
+
+        // 같은 단위(unit개, 금액 w) count개를 1, 2, 4, ... 묶음으로
+        void add(int i, int unit, long w, int count) {
+            for (int s = 1; count > 0; s <<= 1) {
+                int take = Math.min(s, count);
+                if (size == weights.length) {
+                    weights = Arrays.copyOf(weights, size * 2);
+                    line = Arrays.copyOf(line, size * 2);
+                    units = Arrays.copyOf(units, size * 2);
+                }
+                weights[size] = w * take;
+                line[size] = i;
+                units[size] = unit * take;
+                size++;
+                count -= take;
+            }
+        }
+
+        QuantitySplit build() {
+            long total = 0;
+            for (int k = 0; k < size; k++) total += weights[k];
+            return new QuantitySplit(Arrays.copyOf(weights, size), Arrays.copyOf(line, size),
+                    Arrays.copyOf(units, size), quantity, complete, total - loss, total + extra);
+        }
+    }
+}
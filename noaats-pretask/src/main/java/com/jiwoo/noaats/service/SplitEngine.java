@@ -0,0 +1,13 @@
+package com.jiwoo.noaats.service;
+
+/**
+ * 2주문 분할 탐색 엔진 선택.
+ */
+public enum SplitEngine {
+    // 상품 수가 작으면 완전 탐색, 크면 부분합 기반 최적화 엔진
+    AUTO,
+    // 기존 2^N x 쿠폰^2 완전 탐색 (검증/교차 확인용 기준 구현)
+    EXHAUSTIVE,
+    // 부분합 DP 기반 최적화 엔진
+    OPTIMIZED
+}
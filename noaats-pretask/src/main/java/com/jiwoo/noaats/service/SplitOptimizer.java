@@ -0,0 +1,539 @@
+package com.jiwoo.noaats.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 2주문 분할 최적화 엔진.
+ *
+ * 주문 1건의 결제 금액은 "상품할인 후 합계"와 쿠폰만으로 정해지므로,
+ * 상품 조합(2^N) 대신 만들 수 있는 부분합만 탐색한다.
+ * - 정확 탐색: 라인 금액의 최대공약수 단위로 부분합 비트셋을 만들고,
+ *   감소 지점 사이 구간에서 분기한정(구간 하한이 현재 최적 이상이면 제외)으로 부분합을 평가
+ * - 부분합 표가 상한을 넘으면 단위를 키운 근사 탐색 후, 구간 하한으로 최적해와의 차이(gap)를 보고
+ *
+ * 시간 예산이 있으면 구간/부분합 단위로 확인하고, 지나면 그때까지의 최선과 남은 구간의 하한을 돌려준다.
+ * 대안 표(PlanRanking)를 주면 평가한 부분합마다 쿠폰 조합별 금액도 기록하고, 그 표가 아직 필요로 하는 구간은 건너뛰지 않는다.
+ * 라인 대신 수량 단위 품목(QuantitySplit)을 넣어도 같다: 품목 금액의 합이 전체 합계이기만 하면 된다.
+ *
+ * 구간 하한은 다음 성질만 사용한다: 감소 지점 사이에서 주문 금액은 상품 합계에 대해
+ * 단조 비감소이고, 합계가 1원 늘 때 최대 1원 늘어난다(각 단계가 할인/0원 보정뿐이므로).
+ */
+final class SplitOptimizer {
+
+    // 분기한정에서 더 나누지 않고 전부 평가하는 구간 폭(금액 단위 개수)
+    private static final int LEAF_WIDTH = 64;
+    // 시간 예산 확인 간격 (분기한정 구간 / 근사 탐색 부분합 개수)
+    private static final int DEADLINE_CHECK = 64;
+    // 복원표(via)에 라인+1을 short로 기록
+    static final int MAX_LINES = Short.MAX_VALUE - 1;
+
+    /**
+     * 주문 1건 결제 금액 함수. option 0 = 쿠폰 미사용, 1.. = 쿠폰.
+     */
+    interface OrderCost {
+        long total(long merch, int option);
+
+        // total이 감소할 수 있는 지점들(오름차순). 이 지점들 사이에서 total은 merch에 대해 단조 비감소
+        long[] breakpoints(int option, long maxMerch);
+    }
+
+    static final class Result {
+        final long totalPay;
+        final BitSet linesA;   // A 주문에 들어가는 라인 (bit i = 라인 i)
+        final int optionA;
+        final int optionB;
+        final boolean optimal; // 증명된 최적해 여부
+        final long lowerBound; // 분할 결제 금액의 하한 (optimal이면 totalPay와 같음)
+
+        Result(long totalPay, BitSet linesA, int optionA, int optionB, boolean optimal, long lowerBound) {
+            this.totalPay = totalPay;
+            this.linesA = linesA;
+            this.optionA = optionA;
+            this.optionB = optionB;
+            this.optimal = optimal;
+            this.lowerBound = lowerBound;
+        }
+    }
+
+    private final long[] lines;
+    private final OrderCost cost;
+    private final int options;
+    private final int[] group; // 같은 쿠폰(이름 기준) 묶음. option 0은 -1
+    private final int exactSumLimit;
+    private final int approxSumLimit;
+
+    // 요청 1건 전용 작업 상태
+    private long total;
+    private long unit;
+    private int zeroLine;
+    private final long[] fa, fb, ga, gb;
+    private long cutoff;
+    private Deadline deadline;
+    private PlanRanking ranking; // null이면 대안 기록 안 함
+    private short[] via;         // 부분합 위치 → 처음 도달한 라인+1 (복원용)
+    private int[] weight;
+    private long bestTotal;
+    private long bestSum;
+    private int bestA, bestB;
+    private int pairA, pairB;
+
+    // 모니터링용: 평가한 부분합 수 / 하한으로 제외한 구간 수 (solve 후 읽음)
+    long evaluated;
+    long pruned;
+    // 시간 예산으로 탐색을 중간에 멈췄는지 (결과가 있으면 optimal=false일 수 있음)
+    boolean timedOut;
+
+    SplitOptimizer(long[] lines, OrderCost cost, boolean[][] conflict, int exactSumLimit, int approxSumLimit) {
+        if (lines.length > MAX_LINES) {
+            throw new IllegalArgumentException("분할 최적화는 라인 " + MAX_LINES + "개까지만 지원합니다.");
+        }
+        this.lines = lines;
+        this.cost = cost;
+        this.options = conflict.length;
+        this.exactSumLimit = Math.max(1, exactSumLimit);
+        this.approxSumLimit = Math.max(1, approxSumLimit);
+
+        this.group = new int[options];
+        group[0] = -1;
+        for (int a = 1; a < options; a++) {
+            group[a] = a;
+            for (int b = 1; b < a; b++) {
+                if (conflict[a][b]) {
+                    group[a] = group[b];
+                    break;
+                }
+            }
+        }
+        this.fa = new long[options];
+        this.fb = new long[options];
+        this.ga = new long[options];
+        this.gb = new long[options];
+    }
+
+    /**
+     * @param cutoff   이미 아는 분할 금액(첫 답). 하한이 이보다 큰 구간은 건너뛴다 (같은 금액은 탐색하므로 결과는 그대로)
+     * @param deadline 시간 예산. 지나면 timedOut = true로 그때까지의 최선을 돌려준다
+     * @return 최적(또는 근사) 분할. 분할 후보가 없거나(상품 1개 등) 찾기 전에 멈추면 null
+     */
+    Result solve(long cutoff, Deadline deadline) {
+        return solve(cutoff, deadline, null);
+    }
+
+    /**
+     * @param ranking 대안 표. 평가한 분할을 쿠폰 조합별로 기록한다 (라인 64개 이하, 라인 단위 분할에서만)
+     */
+    Result solve(long cutoff, Deadline deadline, PlanRanking ranking) {
+        this.cutoff = cutoff;
+        this.deadline = deadline;
+        this.ranking = ranking;
+
+        int n = lines.length;
+        if (n < 2) return null;
+
+        long g = 0;
+        total = 0;
+        for (long w : lines) {
+            total += w;
+            if (w > 0) g = gcd(g, w);
+        }
+        if (g == 0) g = 1;
+
+        bestTotal = Long.MAX_VALUE;
+        bestSum = -1;
+
+        long steps = total / g;
+        if (steps <= exactSumLimit) {
+            unit = g;
+            return solveExact((int) steps);
+        }
+        unit = g * ((steps + approxSumLimit - 1) / approxSumLimit);
+        return solveApprox();
+    }
+
+    /* ------------------------
+       정확 탐색
+       ------------------------ */
+    private Result solveExact(int maxSum) {
+        int n = lines.length;
+        weight = new int[n];
+        zeroLine = -1;
+        for (int i = 0; i < n; i++) {
+            weight[i] = (int) (lines[i] / unit);
+            if (weight[i] == 0) zeroLine = i;
+        }
+
+        // 부분합 비트셋 + via[r] = r에 처음 도달한 라인+1 (복원용)
+        long[] bits = new long[(maxSum >> 6) + 1];
+        via = new short[maxSum + 1];
+        bits[0] = 1L;
+        int reached = 0;
+        for (int i = 0; i < n; i++) {
+            int w = weight[i];
+            if (w == 0) continue;
+            reached = Math.min(maxSum, reached + w);
+            shiftOr(bits, w, reached, via, (short) (i + 1));
+        }
+
+        // 감소 지점으로 나눈 구간마다 분기한정
+        long[] starts = regionStarts();
+        int[] stack = new int[64];
+        int sp = 0;
+        for (int k = 0; k < starts.length; k++) {
+            int lo = (int) ((starts[k] + unit - 1) / unit);
+            int hi = k + 1 < starts.length ? (int) ((starts[k + 1] + unit - 1) / unit) - 1 : maxSum;
+            if (lo > hi) continue;
+            if (sp + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[sp++] = lo;
+            stack[sp++] = hi;
+        }
+
+        int steps = 0;
+        while (sp > 0) {
+            if (++steps % DEADLINE_CHECK == 0 && deadline.passed()) {
+                timedOut = true;
+                break;
+            }
+            int hi = stack[--sp];
+            int lo = stack[--sp];
+            int la = nextSet(bits, lo, hi);
+            if (la < 0) continue;
+            int ha = prevSet(bits, la, hi);
+
+            long xa = la * unit, xh = ha * unit;
+            evaluate(xa, la, fa, fb);
+            if (la == ha) continue;
+            evaluate(xh, ha, ga, gb);
+            long regionBound = bound(xa, xh, fa, ga, gb, fb);
+            if ((regionBound >= bestTotal || regionBound > cutoff) && (ranking == null || regionBound >= ranking.limit())) {
+                pruned++;
+                continue;
+            }
+
+            if (ha - la <= LEAF_WIDTH) {
+                for (int r = nextSet(bits, la + 1, ha - 1); r >= 0; r = nextSet(bits, r + 1, ha - 1)) {
+                    evaluate(r * unit, r, fa, fb);
+                }
+                continue;
+            }
+            int mid = (la + ha) >>> 1;
+            if (sp + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[sp++] = mid + 1;
+            stack[sp++] = ha - 1;
+            stack[sp++] = la + 1;
+            stack[sp++] = mid;
+        }
+
+        if (bestSum < 0) return null;
+        long lowerBound = timedOut ? Math.min(bestTotal, remainingBound(bits, stack, sp)) : bestTotal;
+
+        BitSet linesA = new BitSet(n);
+        int r = (int) (bestSum / unit);
+        if (r == 0) {
+            linesA.set(zeroLine);
+        } else {
+            while (r > 0) {
+                int i = via[r] - 1;
+                linesA.set(i);
+                r -= weight[i];
+            }
+        }
+        return new Result(bestTotal, linesA, bestA, bestB, lowerBound == bestTotal, lowerBound);
+    }
+
+    // 탐색하지 못한 구간들의 하한: 구간 [la, ha]에서 A >= f(la), B >= f(total - ha) (구간 안 단조성)
+    private long remainingBound(long[] bits, int[] stack, int sp) {
+        long bound = Long.MAX_VALUE;
+        for (int s = 0; s < sp; s += 2) {
+            int la = nextSet(bits, stack[s], stack[s + 1]);
+            if (la < 0) continue;
+            int ha = prevSet(bits, la, stack[s + 1]);
+            for (int c = 0; c < options; c++) {
+                fa[c] = cost.total(la * unit, c);
+                gb[c] = cost.total(total - ha * unit, c);
+            }
+            bound = Math.min(bound, bestPair(fa, gb));
+        }
+        return bound;
+    }
+
+    // bits |= bits << w (r <= limit), 새로 켜진 부분합에 라인 기록
+    private static void shiftOr(long[] bits, int w, int limit, short[] via, short line) {
+        int ws = w >>> 6, bs = w & 63;
+        for (int j = limit >>> 6; j >= ws; j--) {
+            long shifted = bits[j - ws] << bs;
+            if (bs != 0 && j - ws - 1 >= 0) shifted |= bits[j - ws - 1] >>> (64 - bs);
+            long fresh = shifted & ~bits[j];
+            if (j == limit >>> 6) fresh &= -1L >>> (63 - (limit & 63));
+            if (fresh == 0) continue;
+            bits[j] |= fresh;
+            while (fresh != 0) {
+                int b = Long.numberOfTrailingZeros(fresh);
+                via[(j << 6) + b] = line;
+                fresh &= fresh - 1;
+            }
+        }
+    }
+
+    private static int nextSet(long[] bits, int from, int to) {
+        if (from > to) return -1;
+        int j = from >>> 6;
+        long word = bits[j] & (-1L << (from & 63));
+        while (true) {
+            if (word != 0) {
+                int r = (j << 6) + Long.numberOfTrailingZeros(word);
+                return r <= to ? r : -1;
+            }
+            if (++j > to >>> 6) return -1;
+            word = bits[j];
+        }
+    }
+
+    private static int prevSet(long[] bits, int from, int to) {
+        int j = to >>> 6;
+        long word = bits[j] & (-1L >>> (63 - (to & 63)));
+        while (true) {
+            if (word != 0) {
+                int r = (j << 6) + 63 - Long.numberOfLeadingZeros(word);
+                return r >= from ? r : -1;
+            }
+            if (--j < from >>> 6) return -1;
+            word = bits[j];
+        }
+    }
+
+    /* ------------------------
+       근사 탐색 (부분합 표가 상한을 넘을 때)
+       ------------------------ */
+    private Result solveApprox() {
+        int n = lines.length;
+
+        // 단위 금액(0이 될 수 있음: 단위보다 싼 라인은 기본적으로 B)
+        weight = new int[n];
+        int maxSum = 0;
+        zeroLine = -1;
+        for (int i = 0; i < n; i++) {
+            weight[i] = (int) (lines[i] / unit);
+            maxSum += weight[i];
+            if (weight[i] == 0 && (zeroLine < 0 || lines[i] < lines[zeroLine])) zeroLine = i;
+        }
+
+        // via[r] = r에 처음 도달한 라인+1, exactSum[r] = 그 조합의 실제 금액
+        via = new short[maxSum + 1];
+        long[] exactSum = new long[maxSum + 1];
+        via[0] = -1;
+        int reached = 0;
+        for (int i = 0; i < n; i++) {
+            int w = weight[i];
+            if (w == 0) continue;
+            for (int r = Math.min(maxSum, reached + w); r >= w; r--) {
+                if (via[r] == 0 && via[r - w] != 0) {
+                    via[r] = (short) (i + 1);
+                    exactSum[r] = exactSum[r - w] + lines[i];
+                }
+            }
+            reached += w;
+        }
+
+        int bestR = -1;
+        for (int r = 0; r <= maxSum; r++) {
+            if (r % DEADLINE_CHECK == 0 && deadline.passed()) {
+                timedOut = true;
+                break;
+            }
+            if (via[r] == 0) continue;
+            // r = 0이면 가장 싼 0단위 라인을 A로 (A가 비지 않도록)
+            long x = r == 0 ? (zeroLine < 0 ? -1 : lines[zeroLine]) : exactSum[r];
+            if (x < 0) continue;
+            long before = bestTotal;
+            evaluate(x, r, fa, fb);
+            if (bestTotal < before) bestR = r;
+        }
+        if (bestR < 0) return null;
+
+        BitSet linesA = new BitSet(n);
+        if (bestR == 0) {
+            linesA.set(zeroLine);
+        } else {
+            for (int r = bestR; r > 0; ) {
+                int i = via[r] - 1;
+                linesA.set(i);
+                r -= weight[i];
+            }
+        }
+
+        // 멈췄으면 하한 계산(근사 탐색과 같은 규모)도 생략: 호출 쪽이 주문 규칙만으로 만든 하한을 쓴다
+        long lowerBound = timedOut ? 0 : Math.min(bestTotal, lowerBound());
+        return new Result(bestTotal, linesA, bestA, bestB, lowerBound == bestTotal, lowerBound);
+    }
+
+    /**
+     * 근사 탐색용 하한: [0, total]을 금액 단위 격자와 감소 지점으로 나눈 모든 구간의 하한 중 최솟값.
+     * (도달 가능 여부를 무시하므로 실제 최적해 이하)
+     */
+    private long lowerBound() {
+        long[] starts = regionStarts();
+        long bound = Long.MAX_VALUE;
+        int k = 0;
+        long lo = 0;
+        while (lo <= total) {
+            while (k + 1 < starts.length && starts[k + 1] <= lo) k++;
+            long hi = Math.min(total, (lo / unit + 1) * unit - 1);
+            if (k + 1 < starts.length) hi = Math.min(hi, starts[k + 1] - 1);
+
+            for (int c = 0; c < options; c++) {
+                fa[c] = cost.total(lo, c);
+                gb[c] = cost.total(total - hi, c);
+            }
+            // 단조성만 쓴 하한이 이미 현재 최적 이상이면 이 구간은 볼 필요 없음
+            long monotone = bestPair(fa, gb);
+            if (monotone < Math.min(bound, bestTotal) && lo < hi) {
+                for (int c = 0; c < options; c++) {
+                    fb[c] = cost.total(total - lo, c);
+                    ga[c] = cost.total(hi, c);
+                }
+                bound = Math.min(bound, Math.max(monotone, bound(lo, hi, fa, ga, gb, fb)));
+            } else {
+                bound = Math.min(bound, monotone);
+            }
+            lo = hi + 1;
+        }
+        return bound;
+    }
+
+    /* ------------------------
+       공통: 평가 / 하한
+       ------------------------ */
+
+    // A 합계 x(부분합 위치 r)인 분할을 평가해 최적 갱신. x가 분할로 불가능한 값(A 또는 B가 빔)이면 값만 채운다
+    private void evaluate(long x, int r, long[] outA, long[] outB) {
+        evaluated++;
+        long y = total - x;
+        for (int c = 0; c < options; c++) {
+            outA[c] = cost.total(x, c);
+            outB[c] = cost.total(y, c);
+        }
+        if ((x == 0 || y == 0) && zeroLine < 0) return;
+        if (ranking != null) rank(r, outA, outB);
+
+        long sum = bestPair(outA, outB);
+        if (sum < bestTotal) {
+            bestTotal = sum;
+            bestSum = x;
+            bestA = pairA;
+            bestB = pairB;
+        }
+    }
+
+    // 대안 표에 쿠폰 조합별 금액 기록. 쿠폰이 미사용보다 싸지지 않는 조합은 대안이 아니므로 뺀다
+    private void rank(int r, long[] a, long[] b) {
+        long linesA = -1;
+        for (int i = 0; i < options; i++) {
+            if (i > 0 && a[i] >= a[0]) continue;
+            for (int j = 0; j < options; j++) {
+                if (j > 0 && (b[j] >= b[0] || (i != 0 && group[i] == group[j]))) continue;
+                long sum = a[i] + b[j];
+                if (sum >= ranking.limit()) continue;
+                if (linesA < 0) linesA = maskAt(r);
+                ranking.pair(sum, linesA, i, j);
+            }
+        }
+    }
+
+    // 부분합 위치 r인 A 주문 라인 (대안 기록용: 라인 64개 이하)
+    private long maskAt(int r) {
+        if (r == 0) return 1L << zeroLine;
+        long linesA = 0;
+        while (r > 0) {
+            int i = via[r] - 1;
+            linesA |= 1L << i;
+            r -= weight[i];
+        }
+        return linesA;
+    }
+
+    /**
+     * 같은 쿠폰을 두 주문에 쓰지 않는 조건에서 a[i] + b[j]의 최솟값.
+     * 그때의 (i, j)는 pairA, pairB에 남긴다. 동률이면 작은 i 우선.
+     */
+    private long bestPair(long[] a, long[] b) {
+        // B쪽 최소(b1)와, b1과 다른 묶음 중 최소(b2). 쿠폰 미사용(0)은 어느 묶음과도 충돌하지 않음
+        int b1 = 0;
+        for (int j = 1; j < options; j++) {
+            if (b[j] < b[b1]) b1 = j;
+        }
+        int b2 = 0;
+        for (int j = 1; j < options; j++) {
+            if (group[j] != group[b1] && b[j] < b[b2]) b2 = j;
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < options; i++) {
+            int j = (i != 0 && b1 != 0 && group[i] == group[b1]) ? b2 : b1;
+            long sum = a[i] + b[j];
+            if (sum < best) {
+                best = sum;
+                pairA = i;
+                pairB = j;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 감소 지점이 없는 구간 [xa, xh] 안의 모든 분할 금액 하한.
+     * aLo/aHi = A 금액 f(xa), f(xh), bLo/bHi = B 금액 f(total - xh), f(total - xa).
+     * s에서 A >= max(aLo, aHi - (xh - s)), B >= max(bLo, bHi - (s - xa)).
+     */
+    private long bound(long xa, long xh, long[] aLo, long[] aHi, long[] bLo, long[] bHi) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < options; i++) {
+            for (int j = 0; j < options; j++) {
+                if (i != 0 && j != 0 && group[i] == group[j]) continue;
+                long kinkA = Math.max(xa, Math.min(xh, xh - (aHi[i] - aLo[i])));
+                long kinkB = Math.max(xa, Math.min(xh, xa + (bHi[j] - bLo[j])));
+                best = Math.min(best, pairBound(xa, i, j, xa, xh, aLo, aHi, bLo, bHi));
+                best = Math.min(best, pairBound(xh, i, j, xa, xh, aLo, aHi, bLo, bHi));
+                best = Math.min(best, pairBound(kinkA, i, j, xa, xh, aLo, aHi, bLo, bHi));
+                best = Math.min(best, pairBound(kinkB, i, j, xa, xh, aLo, aHi, bLo, bHi));
+            }
+        }
+        return best;
+    }
+
+    private static long pairBound(long s, int i, int j, long xa, long xh,
+                                  long[] aLo, long[] aHi, long[] bLo, long[] bHi) {
+        return Math.max(aLo[i], aHi[i] - (xh - s)) + Math.max(bLo[j], bHi[j] - (s - xa));
+    }
+
+    // 구간 시작점: 0, A쪽 감소 지점 p, B쪽 감소 지점에 대응하는 total - p + 1
+    private long[] regionStarts() {
+        long[] all = new long[16];
+        int size = 0;
+        all[size++] = 0;
+        for (int c = 0; c < options; c++) {
+            for (long p : cost.breakpoints(c, total)) {
+                if (p <= 0 || p > total) continue;
+                if (size + 2 > all.length) all = Arrays.copyOf(all, all.length * 2);
+                all[size++] = p;
+                all[size++] = total - p + 1;
+            }
+        }
+        long[] sorted = Arrays.copyOf(all, size);
+        Arrays.sort(sorted);
+        int u = 0;
+        for (int k = 0; k < sorted.length; k++) {
+            if (u == 0 || sorted[k] != sorted[u - 1]) sorted[u++] = sorted[k];
+        }
+        return Arrays.copyOf(sorted, u);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
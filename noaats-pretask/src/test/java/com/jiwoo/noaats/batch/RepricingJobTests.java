@@ -0,0 +1,122 @@
+package com.jiwoo.noaats.batch;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.DiscountResult;
+import com.jiwoo.noaats.form.DiscountForm;
+import com.jiwoo.noaats.service.CouponCatalog;
+import com.jiwoo.noaats.service.DiscountCalculatorService;
+import com.jiwoo.noaats.service.DiscountMetrics;
+import com.jiwoo.noaats.service.DiscountResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepricingJobTests {
+
+    private static final String CART = "{\"products\":[{\"name\":\"A\",\"price\":%d,\"quantity\":1},"
+            + "{\"name\":\"B\",\"price\":30000,\"quantity\":1},{\"name\":\"C\",\"price\":30000,\"quantity\":1}],"
+            + "\"coupons\":[{\"name\":\"쿠폰1\",\"type\":\"fixed\",\"value\":5000,\"minSpend\":30000},"
+            + "{\"name\":\"쿠폰2\",\"type\":\"fixed\",\"value\":5000,\"minSpend\":30000}],"
+            + "\"shippingFee\":3000,\"freeShippingThreshold\":30000}";
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final DiscountProperties properties = new DiscountProperties();
+    private final DiscountResultCache cache = new DiscountResultCache(properties);
+    private final DiscountCalculatorService calculator = new DiscountCalculatorService(properties,
+            ForkJoinPool.commonPool(), cache, new DiscountMetrics(registry));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void repricesEveryLineInInputOrder() throws Exception {
+        // 한 줄(약 300 bytes)이 매핑 구간 경계에 자주 걸리도록 구간을 작게
+        properties.getReprice().setWindowSize(1024);
+        properties.getReprice().setThreads(4);
+        properties.getReprice().setQueueCapacity(8);
+        properties.getReprice().setWriteBufferSize(256);
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append(String.format(CART, 10000 + i * 100)).append(i % 2 == 0 ? "\r\n" : "\n");
+            if (i == 10) sb.append("\n");                  // 빈 줄: 건너뜀
+            if (i == 20) sb.append("{not json\n");         // 파싱 오류
+            if (i == 30) sb.append("{\"products\":[]}\n"); // 상품 없음
+        }
+        sb.setLength(sb.length() - 1); // 마지막 줄은 개행 없이
+        Path input = write(sb.toString());
+        Path output = dir.resolve("out.tsv");
+
+        RepricingJob.Summary summary = job().run(input, output, null);
+        // 일괄 재계산은 화면용 결과 캐시를 채우지 않는다
+        assertThat(cache.size()).isZero();
+
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertThat(summary.getCarts()).isEqualTo(202);
+        assertThat(summary.getErrors()).isEqualTo(2);
+        assertThat(lines).hasSize(202);
+        assertThat(lines).filteredOn(l -> l.contains("\tERR\t")).extracting(l -> l.split("\t")[0])
+                .containsExactly("23", "34");
+
+        // 정상 줄은 한 건씩 계산한 결과와 같고 입력 순서를 따른다
+        List<String> priced = lines.stream().filter(l -> !l.contains("\tERR\t")).toList();
+        assertThat(priced).hasSize(200);
+        for (int i = 0; i < 200; i++) {
+            DiscountResult expected = calculator.calculateBestStrategy(form(10000 + i * 100));
+            String[] cols = priced.get(i).split("\t");
+            assertThat(Long.parseLong(cols[1])).as("cart %d", i).isEqualTo(expected.getFinalPay());
+            assertThat(Long.parseLong(cols[2])).as("cart %d", i).isEqualTo(expected.getBasePay());
+            assertThat(Integer.parseInt(cols[4])).as("cart %d", i).isEqualTo(expected.getOrderCount());
+            assertThat(cols[6].split("\\|")).as("cart %d", i).hasSize(expected.getOrderCount());
+        }
+
+        assertThat(registry.get("discount.reprice.carts").tag("outcome", "ok").counter().count()).isEqualTo(200);
+        assertThat(registry.get("discount.reprice.carts").tag("outcome", "error").counter().count()).isEqualTo(2);
+        assertThat(registry.get("discount.reprice.progress").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void replacesCouponsWhenGiven() throws Exception {
+        Path input = write(String.format(CART, 30000) + "\n");
+        Path output = dir.resolve("out.tsv");
+
+        Coupon coupon = new Coupon();
+        coupon.setName("새쿠폰");
+        coupon.setType("fixed");
+        coupon.setValue(20000.0);
+        coupon.setMinSpend(90000);
+
+        job().run(input, output, List.of(coupon));
+
+        // 90,000원 1주문 + 새쿠폰 20,000원 → 70,000원, 무료배송 (기존 쿠폰은 사용 안 함)
+        assertThat(Files.readAllLines(output, StandardCharsets.UTF_8))
+                .containsExactly("1\t70000\t90000\t20000\t1\t1\t0,1,2:0");
+    }
+
+    private RepricingJob job() {
+        return new RepricingJob(calculator, new CouponCatalog(properties, jsonMapper), properties, jsonMapper, registry);
+    }
+
+    private DiscountForm form(int priceA) {
+        return jsonMapper.readValue(String.format(CART, priceA), DiscountForm.class);
+    }
+
+    private Path write(String content) throws IOException {
+        Path input = dir.resolve("carts.jsonl");
+        Files.writeString(input, content, StandardCharsets.UTF_8);
+        return input;
+    }
+}
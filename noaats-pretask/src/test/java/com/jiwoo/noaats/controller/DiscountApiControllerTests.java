@@ -0,0 +1,118 @@
+package com.jiwoo.noaats.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class DiscountApiControllerTests {
+
+    private static final String CART = """
+            {
+              "products": [
+                {"name": "A", "price": 30000, "quantity": 1},
+                {"name": "B", "price": 30000, "quantity": 1},
+                {"name": "C", "price": 30000, "quantity": 1}
+              ],
+              "coupons": [
+                {"name": "쿠폰1", "type": "fixed", "value": 5000, "minSpend": 30000},
+                {"name": "쿠폰2", "type": "fixed", "value": 5000, "minSpend": 30000}
+              ],
+              "shippingFee": 3000,
+              "freeShippingThreshold": 30000
+            }
+            """;
+
+    private static final String EMPTY_CART = """
+            {"products": []}
+            """;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void calculateReturnsNumbersWithoutDetailByDefault() throws Exception {
+        mvc.perform(post("/api/v1/calculate").contentType(MediaType.APPLICATION_JSON).content(CART))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.basePay").value(90000))
+                .andExpect(jsonPath("$.finalPay").value(83000))
+                .andExpect(jsonPath("$.orderCount").value(2))
+                .andExpect(jsonPath("$.orders.length()").value(2))
+                .andExpect(jsonPath("$.orders[0].itemIndices").isArray())
+                .andExpect(jsonPath("$.orders[0].couponIndex").isNumber())
+                .andExpect(jsonPath("$.twoOrders").doesNotExist());
+    }
+
+    @Test
+    void calculateIncludesStrategyPlansOnRequest() throws Exception {
+        mvc.perform(post("/api/v1/calculate?detail=true").contentType(MediaType.APPLICATION_JSON).content(CART))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.singleOrder.status").value("FOUND"))
+                .andExpect(jsonPath("$.twoOrders.totalPay").value(83000))
+                .andExpect(jsonPath("$.manyOrders.status").value("NOT_REQUESTED"));
+    }
+
+    @Test
+    void calculateRejectsCartWithoutProducts() throws Exception {
+        mvc.perform(post("/api/v1/calculate").contentType(MediaType.APPLICATION_JSON).content(EMPTY_CART))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void batchKeepsRequestOrderAndReportsInvalidCarts() throws Exception {
+        String body = "[" + CART + "," + EMPTY_CART + "," + CART + "]";
+
+        mvc.perform(post("/api/v1/calculate/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].result.finalPay").value(83000))
+                .andExpect(jsonPath("$[1].error").isString())
+                .andExpect(jsonPath("$[1].result").doesNotExist())
+                .andExpect(jsonPath("$[2].result.finalPay").value(83000));
+    }
+
+    @Test
+    void sessionAppliesEditsToPreviousCart() throws Exception {
+        String opened = mvc.perform(post("/api/v1/sessions").contentType(MediaType.APPLICATION_JSON).content(CART))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isString())
+                .andExpect(jsonPath("$.result.finalPay").value(83000))
+                .andReturn().getResponse().getContentAsString();
+        String token = JsonPath.read(opened, "$.token");
+
+        // 쿠폰2를 빼면 쿠폰 1장만 쓸 수 있다
+        mvc.perform(patch("/api/v1/sessions/" + token).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"couponIndex\": 1, \"couponActive\": false}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value(token))
+                .andExpect(jsonPath("$.result.finalPay").value(85000));
+
+        // 이전 변경은 세션에 남고, 상품 수량만 바꾼다
+        mvc.perform(patch("/api/v1/sessions/" + token).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productIndex\": 0, \"quantity\": 2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result.basePay").value(120000))
+                .andExpect(jsonPath("$.result.finalPay").value(115000));
+
+        mvc.perform(patch("/api/v1/sessions/" + token).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"productIndex\": 9, \"quantity\": 1}"))
+                .andExpect(status().isBadRequest());
+
+        mvc.perform(delete("/api/v1/sessions/" + token)).andExpect(status().isNoContent());
+        mvc.perform(patch("/api/v1/sessions/" + token).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"couponIndex\": 1, \"couponActive\": true}"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,132 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.DiscountResult;
+import com.jiwoo.noaats.form.DiscountForm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.jiwoo.noaats.service.DiscountCalculatorServiceTests.splitCart;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CouponCatalogTests {
+
+    private static final String CATALOG = """
+            {
+              "default": [
+                {"id": "W10000", "name": "만원쿠폰", "type": "fixed", "value": 10000, "minSpend": 50000},
+                {"id": "P15", "name": "15%쿠폰", "type": "percent", "value": 15, "minSpend": 30000, "maxDiscount": 8000},
+                {"id": "W3000", "name": "3천원쿠폰", "type": "fixed", "value": 3000, "minSpend": 20000},
+                {"id": "OLD", "name": "종료쿠폰", "type": "fixed", "value": 5000, "active": false}
+              ],
+              "shop-b": [
+                {"id": "W3000", "name": "3천원쿠폰", "type": "fixed", "value": 3000, "minSpend": 0}
+              ]
+            }
+            """;
+
+    private final DiscountProperties properties = new DiscountProperties();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final DiscountCalculatorService calculator = new DiscountCalculatorService(properties,
+            ForkJoinPool.commonPool(), new DiscountResultCache(properties),
+            new DiscountMetrics(new SimpleMeterRegistry()));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void catalogCouponsGiveTheSameResultAsInlineCoupons() throws Exception {
+        CouponCatalog catalog = catalog(CATALOG);
+        assertThat(catalog.status().getVersion()).isEqualTo(1);
+        assertThat(catalog.status().getTenants()).isEqualTo(2);
+        assertThat(catalog.status().getCoupons()).isEqualTo(4); // 사용 안 함 쿠폰 제외
+        assertThat(catalog.coupons("default")).extracting(Coupon::getId).containsExactly("W3000", "P15", "W10000");
+        assertThat(catalog.coupons("none")).isNull();
+
+        DiscountResult inline = calculator.calculateBestStrategy(splitCart());
+
+        DiscountForm form = splitCart();
+        form.setCoupons(new ArrayList<>());
+        form.setCouponIds(List.of("W10000", "P15", "W3000"));
+        catalog.attach(form);
+        assertThat(form.getCoupons()).hasSize(3);
+        assertThat(form.getCouponIds()).isEmpty();
+
+        DiscountResult fromCatalog = calculator.calculateBestStrategy(form);
+        assertThat(fromCatalog.getFinalPay()).isEqualTo(inline.getFinalPay());
+        assertThat(fromCatalog.getOrderCount()).isEqualTo(inline.getOrderCount());
+        assertThat(fromCatalog.getOrders()).usingRecursiveComparison().isEqualTo(inline.getOrders());
+
+        // 공유 쿠폰은 바꿀 수 없다
+        Coupon shared = form.getCoupons().get(0);
+        assertThatThrownBy(() -> shared.setActive(false)).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void unknownTenantOrCouponIsRejected() throws Exception {
+        CouponCatalog catalog = catalog(CATALOG);
+
+        DiscountForm form = splitCart();
+        form.setCouponIds(List.of("P15"));
+        form.setTenant("shop-b");
+        assertThatThrownBy(() -> catalog.attach(form)).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("shop-b/P15");
+
+        form.setTenant("shop-c");
+        assertThatThrownBy(() -> catalog.attach(form)).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("shop-c");
+
+        // 카탈로그가 없으면 couponIds를 쓸 수 없고 다시 불러올 파일도 없다
+        CouponCatalog none = new CouponCatalog(new DiscountProperties(), jsonMapper);
+        form.setTenant(null);
+        assertThatThrownBy(() -> none.attach(form)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(none::reload).isInstanceOf(IllegalStateException.class);
+        assertThat(none.status().getVersion()).isZero();
+    }
+
+    @Test
+    void invalidFileKeepsTheCurrentSnapshot() throws Exception {
+        CouponCatalog catalog = catalog(CATALOG);
+        Path file = dir.resolve("catalog.json");
+
+        Files.writeString(file, """
+                {"default": [{"id": "W3000", "type": "fixed", "value": 3000},
+                             {"id": "W3000", "type": "fixed", "value": 5000}]}
+                """);
+        assertThatThrownBy(catalog::reload).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("중복");
+        Files.writeString(file, "{\"default\": [{\"id\": \"X\", \"type\": \"bogo\", \"value\": 1}]}");
+        assertThatThrownBy(catalog::reload).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("종류");
+        Files.writeString(file, "{\"default\": [");
+        assertThatThrownBy(catalog::reload).isInstanceOf(IllegalArgumentException.class);
+        Files.delete(file);
+        assertThatThrownBy(catalog::reload).isInstanceOf(UncheckedIOException.class);
+
+        assertThat(catalog.status().getVersion()).isEqualTo(1);
+        assertThat(catalog.coupons("default")).hasSize(3);
+
+        Files.writeString(file, "{\"default\": [{\"id\": \"W3000\", \"type\": \"fixed\", \"value\": 3000}]}");
+        assertThat(catalog.reload().getVersion()).isEqualTo(2);
+        assertThat(catalog.coupons("default")).hasSize(1);
+        assertThat(catalog.coupons("shop-b")).isNull();
+    }
+
+    private CouponCatalog catalog(String json) throws Exception {
+        Path file = dir.resolve("catalog.json");
+        Files.writeString(file, json);
+        properties.getCatalog().setPath(file.toString());
+        properties.getCatalog().setReloadInterval(Duration.ZERO);
+        return new CouponCatalog(properties, jsonMapper);
+    }
+}
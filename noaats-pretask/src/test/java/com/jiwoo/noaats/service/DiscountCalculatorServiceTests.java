@@ -0,0 +1,722 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.CouponAlternative;
+import com.jiwoo.noaats.domain.DiscountResult;
+import com.jiwoo.noaats.domain.OrderPlan;
+import com.jiwoo.noaats.domain.PlanStatus;
+import com.jiwoo.noaats.domain.ProductItem;
+import com.jiwoo.noaats.domain.PromoTier;
+import com.jiwoo.noaats.domain.StrategyPlan;
+import com.jiwoo.noaats.form.DiscountForm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DiscountCalculatorServiceTests {
+
+    private final DiscountCalculatorService service = calculator(new DiscountProperties());
+    private final DiscountDetailFormatter formatter = new DiscountDetailFormatter(new DiscountProperties(), metrics());
+
+    @Test
+    void splitCartMatchesGoldenDetail() throws IOException {
+        DiscountForm form = splitCart();
+        DiscountResult result = service.calculateBestStrategy(form);
+
+        assertThat(result.getBasePay()).isEqualTo(112_600);
+        assertThat(result.getFinalPay()).isEqualTo(94_210);
+        assertThat(result.getSavedRate()).isEqualTo(16.33);
+        assertThat(formatter.summary(result)).isEqualTo("✅ 추천: 2번으로 나눠 구매 (18,390원 절감)");
+        assertThat(formatter.detail(form, result)).isEqualTo(golden("split-cart.txt"));
+    }
+
+    @Test
+    void singleCartMatchesGoldenDetail() throws IOException {
+        DiscountForm form = singleCart();
+        DiscountResult result = service.calculateBestStrategy(form);
+
+        assertThat(result.getBasePay()).isEqualTo(1_168_000);
+        assertThat(result.getFinalPay()).isEqualTo(1_118_000);
+        assertThat(formatter.summary(result)).isEqualTo("✅ 추천: 1번에 구매 (50,000원 절감)");
+        assertThat(formatter.detail(form, result)).isEqualTo(golden("single-cart.txt"));
+    }
+
+    @Test
+    void ordersReferToFormPositions() {
+        DiscountForm form = splitCart();
+        // 비활성 상품/쿠폰은 계산에서 빠져도 위치는 form 기준
+        form.getProducts().add(0, product("빈칸", 1000, 0, "none", null));
+        form.getCoupons().add(0, coupon("꺼진쿠폰", "fixed", 1000, 0, 0));
+        form.getCoupons().get(0).setActive(false);
+
+        DiscountResult result = service.calculateBestStrategy(form);
+        OrderPlan a = result.getOrders().get(0);
+        OrderPlan b = result.getOrders().get(1);
+
+        assertThat(a.getItemIndices()).containsExactly(1, 3);
+        assertThat(b.getItemIndices()).containsExactly(2, 4);
+        assertThat(a.getCouponIndex()).isEqualTo(2);
+        assertThat(b.getCouponIndex()).isEqualTo(1);
+
+        // 주문 A: 42,600원 → 15% 6,390원 할인, 배송비 3,000원
+        assertThat(a.getBaseAmount()).isEqualTo(48_000);
+        assertThat(a.getMerchandise()).isEqualTo(42_600);
+        assertThat(a.isPromoApplied()).isFalse();
+        assertThat(a.isCouponApplied()).isTrue();
+        assertThat(a.getCouponDiscount()).isEqualTo(6_390);
+        assertThat(a.getShipping()).isEqualTo(3_000);
+        assertThat(a.getTotalPay()).isEqualTo(39_210);
+
+        // 주문 B: 70,000원 → 금액대 5,000원 → 만원쿠폰, 무료배송
+        assertThat(b.isPromoApplied()).isTrue();
+        assertThat(b.getPromoDiscount()).isEqualTo(5_000);
+        assertThat(b.getCouponDiscount()).isEqualTo(10_000);
+        assertThat(b.getShipping()).isZero();
+        assertThat(b.getTotalPay()).isEqualTo(55_000);
+
+        assertThat(result.getTwoOrders().getOrders()).isEqualTo(result.getOrders());
+        assertThat(result.getSingleOrder().getTotalPay()).isEqualTo(97_600);
+        assertThat(result.getManyOrders().getStatus()).isEqualTo(PlanStatus.NOT_REQUESTED);
+    }
+
+    @Test
+    void threeOrdersWhenEachCouponNeedsItsOwnOrder() {
+        DiscountForm form = new DiscountForm();
+        form.getProducts().add(product("A", 30000, 1, "none", null));
+        form.getProducts().add(product("B", 30000, 1, "none", null));
+        form.getProducts().add(product("C", 30000, 1, "none", null));
+        form.getCoupons().add(coupon("쿠폰1", "fixed", 5000, 30000, 0));
+        form.getCoupons().add(coupon("쿠폰2", "fixed", 5000, 30000, 0));
+        form.getCoupons().add(coupon("쿠폰3", "fixed", 5000, 30000, 0));
+        form.setMaxOrders(3);
+
+        DiscountResult result = service.calculateBestStrategy(form);
+
+        assertThat(result.getFinalPay()).isEqualTo(75_000);
+        assertThat(result.getOrderCount()).isEqualTo(3);
+        assertThat(result.getManyOrders().getStatus()).isEqualTo(PlanStatus.FOUND);
+        assertThat(result.getOrders()).extracting(OrderPlan::getCouponIndex).containsExactlyInAnyOrder(0, 1, 2);
+        assertThat(result.getOrders()).extracting(OrderPlan::getTotalPay).containsOnly(25_000L);
+
+        form.setMaxOrders(null);
+        assertThat(service.calculateBestStrategy(form).getFinalPay()).isEqualTo(80_000);
+    }
+
+    @Test
+    void bundleAndPromoTiersAreApplied() {
+        DiscountForm form = new DiscountForm();
+        // 2+1: 7개 중 2개 무료 → 5개 금액
+        ProductItem bundle = product("묶음", 10000, 7, "bundle", null);
+        bundle.setBundleBuy(2);
+        bundle.setBundleFree(1);
+        form.getProducts().add(bundle);
+        form.getProducts().add(product("단품", 20000, 1, "none", null));
+        form.setThresholdAmount(30000);
+        form.setThresholdOff(2000);
+        form.getPromoTiers().add(tier(60000, 6000));
+        form.getPromoTiers().add(tier(50000, 4000));
+        form.setShippingFee(3000);
+        form.setFreeShippingThreshold(50000);
+
+        DiscountResult result = service.calculateBestStrategy(form);
+        OrderPlan order = result.getOrders().get(0);
+
+        // 70,000원 → 도달한 구간 중 가장 큰 6,000원 할인, 무료배송
+        assertThat(result.getOrderCount()).isEqualTo(1);
+        assertThat(order.getBaseAmount()).isEqualTo(90_000);
+        assertThat(order.getMerchandise()).isEqualTo(70_000);
+        assertThat(order.isPromoApplied()).isTrue();
+        assertThat(order.getPromoDiscount()).isEqualTo(6_000);
+        assertThat(order.getShipping()).isZero();
+        assertThat(result.getFinalPay()).isEqualTo(64_000);
+
+        String detail = formatter.detail(form, result);
+        assertThat(detail).contains("상품할인:bundle(2+1)");
+        assertThat(detail).contains("30,000원 이상 2,000원 할인, 60,000원 이상 6,000원 할인, 50,000원 이상 4,000원 할인");
+    }
+
+    @Test
+    void moreOrdersNeverCostMore() {
+        for (long seed = 0; seed < 100; seed++) {
+            DiscountForm form = randomCart(new Random(seed), 2 + (int) (seed % 7), (int) (seed % 6));
+
+            long previous = Long.MAX_VALUE;
+            for (int k = 1; k <= 4; k++) {
+                form.setMaxOrders(k);
+                DiscountResult result = service.calculateBestStrategy(form);
+
+                assertThat(result.getFinalPay()).as("seed %d, K=%d", seed, k).isLessThanOrEqualTo(previous);
+                assertThat(result.getOrderCount()).as("seed %d, K=%d", seed, k).isBetween(1, k);
+                assertThat(result.getOrders()).extracting(OrderPlan::getTotalPay)
+                        .as("seed %d, K=%d", seed, k)
+                        .satisfies(pays -> assertThat(pays.stream().mapToLong(Long::longValue).sum()).isEqualTo(result.getFinalPay()));
+                previous = result.getFinalPay();
+            }
+        }
+    }
+
+    @Test
+    void permutedCartHitsCachedResult() {
+        DiscountProperties properties = new DiscountProperties();
+        DiscountResultCache cache = new DiscountResultCache(properties);
+        DiscountCalculatorService cached = new DiscountCalculatorService(properties, ForkJoinPool.commonPool(), cache, metrics());
+
+        DiscountForm form = splitCart();
+        DiscountResult first = cached.calculateBestStrategy(form);
+        List<String> firstOrders = orderNames(form, first);
+
+        // 캐시된 결과의 상품/쿠폰 위치를 뒤집힌 요청 기준으로 옮겨 돌려준다
+        Collections.reverse(form.getProducts());
+        Collections.reverse(form.getCoupons());
+        DiscountResult permuted = cached.calculateBestStrategy(form);
+        assertThat(permuted.getFinalPay()).isEqualTo(first.getFinalPay());
+        assertThat(orderNames(form, permuted)).isEqualTo(firstOrders);
+
+        form.setShippingFee(form.getShippingFee() + 1);
+        cached.calculateBestStrategy(form);
+
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidRowsAndEquivalentValuesShareCachedResult() {
+        DiscountProperties properties = new DiscountProperties();
+        DiscountResultCache cache = new DiscountResultCache(properties);
+        DiscountCalculatorService cached = new DiscountCalculatorService(properties, ForkJoinPool.commonPool(), cache, metrics());
+
+        DiscountForm form = splitCart();
+        DiscountResult first = cached.calculateBestStrategy(form);
+        List<String> firstOrders = orderNames(form, first);
+
+        // 계산에서 빠지는 칸(수량 없음, 값 0 쿠폰)과 같은 정수 값으로 정리되는 입력(15.001% = 1500bp)은 같은 장바구니
+        DiscountForm noisy = splitCart();
+        ProductItem empty = new ProductItem();
+        empty.setName("빈칸");
+        empty.setPrice(1000);
+        noisy.getProducts().add(0, empty);
+        noisy.getCoupons().add(0, coupon("0원쿠폰", "fixed", 0, 0, 0));
+        noisy.getCoupons().get(2).setValue(15.001);
+
+        DiscountResult second = cached.calculateBestStrategy(noisy);
+        assertThat(second.getFinalPay()).isEqualTo(first.getFinalPay());
+        assertThat(orderNames(noisy, second)).isEqualTo(firstOrders);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void stagesAndSplitCandidatesAreRecorded() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DiscountProperties properties = new DiscountProperties();
+        DiscountResultCache cache = new DiscountResultCache(properties);
+        cache.bindTo(registry);
+        DiscountMetrics metrics = new DiscountMetrics(registry);
+        DiscountCalculatorService measured = new DiscountCalculatorService(properties, ForkJoinPool.commonPool(), cache, metrics);
+
+        DiscountForm form = splitCart();
+        form.setMaxOrders(3);
+        measured.calculateBestStrategy(form);
+        measured.calculateBestStrategy(form);
+        new DiscountDetailFormatter(properties, metrics).detail(form, measured.calculateBestStrategy(form));
+
+        assertThat(registry.get("discount.request").timer().count()).isEqualTo(3);
+        assertThat(registry.get("discount.stage").tags("stage", "sanitize", "products", "1-4").timer().count()).isEqualTo(3);
+        // 캐시 적중이면 탐색 단계는 다시 돌지 않는다
+        for (String stage : new String[]{"baseline", "single", "split", "partition", "detail"}) {
+            assertThat(registry.get("discount.stage").tags("stage", stage, "products", "1-4").timer().count())
+                    .as(stage).isEqualTo(1);
+        }
+        // 상품 4개 완전 탐색: A/B를 바꾼 같은 분할은 한 번만 (mask 1..7) 보고, 하한으로 건너뛰지 않은 것만 쿠폰 조합까지 계산
+        double evaluated = registry.get("discount.split.candidates").tag("engine", "exhaustive").summary().totalAmount();
+        double pruned = registry.get("discount.split.pruned").tag("engine", "exhaustive").summary().totalAmount();
+        assertThat(evaluated + pruned).isEqualTo(7);
+        assertThat(pruned).isPositive();
+        assertThat(registry.get("discount.cache.hit.rate").gauge().value()).isCloseTo(2.0 / 3, within(1e-9));
+    }
+
+    @Test
+    void optimizerMatchesExhaustiveReference() {
+        DiscountCalculatorService exhaustive = calculator(properties(SplitEngine.EXHAUSTIVE));
+        DiscountCalculatorService optimized = calculator(properties(SplitEngine.OPTIMIZED));
+
+        for (long seed = 0; seed < 300; seed++) {
+            DiscountForm form = randomCart(new Random(seed), 2 + (int) (seed % 11), (int) (seed % 6));
+
+            DiscountResult expected = exhaustive.calculateBestStrategy(form);
+            DiscountResult actual = optimized.calculateBestStrategy(form);
+
+            assertThat(actual.getFinalPay()).as("seed %d", seed).isEqualTo(expected.getFinalPay());
+            assertThat(actual.isOptimal()).as("seed %d", seed).isTrue();
+        }
+    }
+
+    @Test
+    void optimizerMatchesExhaustiveWithBundlesAndTiers() {
+        DiscountCalculatorService exhaustive = calculator(properties(SplitEngine.EXHAUSTIVE));
+        DiscountCalculatorService optimized = calculator(properties(SplitEngine.OPTIMIZED));
+
+        for (long seed = 0; seed < 200; seed++) {
+            Random r = new Random(seed);
+            DiscountForm form = randomCart(r, 2 + (int) (seed % 11), (int) (seed % 6));
+            // 일부 상품은 N+M 묶음 할인, 금액대 할인은 구간 1~3개 추가
+            for (ProductItem p : form.getProducts()) {
+                if (r.nextInt(3) == 0) {
+                    p.setDiscountType("bundle");
+                    p.setBundleBuy(1 + r.nextInt(3));
+                    p.setBundleFree(1 + r.nextInt(2));
+                    p.setQuantity(1 + r.nextInt(6));
+                }
+            }
+            for (int t = r.nextInt(4); t > 0; t--) {
+                form.getPromoTiers().add(tier(10000 * r.nextInt(20), 1000 * r.nextInt(12)));
+            }
+
+            DiscountResult expected = exhaustive.calculateBestStrategy(form);
+            DiscountResult actual = optimized.calculateBestStrategy(form);
+
+            assertThat(actual.getFinalPay()).as("seed %d", seed).isEqualTo(expected.getFinalPay());
+            assertThat(actual.isOptimal()).as("seed %d", seed).isTrue();
+        }
+    }
+
+    @Test
+    void alternativesKeepTheBestAndMatchRemovedCouponResults() {
+        DiscountCalculatorService exhaustive = calculator(properties(SplitEngine.EXHAUSTIVE));
+        DiscountCalculatorService optimized = calculator(properties(SplitEngine.OPTIMIZED));
+
+        for (long seed = 0; seed < 200; seed++) {
+            DiscountForm form = randomCart(new Random(seed), 2 + (int) (seed % 11), 1 + (int) (seed % 5));
+            DiscountResult plain = exhaustive.calculateBestStrategy(form);
+            form.setAlternatives(3);
+            DiscountResult expected = exhaustive.calculateBestStrategy(form);
+            DiscountResult actual = optimized.calculateBestStrategy(form);
+
+            // 대안을 켜도 추천은 같다
+            assertThat(expected.getFinalPay()).as("seed %d", seed).isEqualTo(plain.getFinalPay());
+            assertThat(expected.getOrders()).as("seed %d", seed).usingRecursiveComparison().isEqualTo(plain.getOrders());
+            assertThat(actual.getFinalPay()).as("seed %d", seed).isEqualTo(plain.getFinalPay());
+
+            // 대안: 추천보다 싸지 않고, 금액 순이며, 전략(주문 수 + 쿠폰)이 서로/추천과 다르다
+            assertThat(expected.getAlternatives()).as("seed %d", seed).hasSizeLessThanOrEqualTo(3);
+            List<Long> totals = expected.getAlternatives().stream().map(StrategyPlan::getTotalPay).toList();
+            assertThat(totals).as("seed %d", seed).isSorted().allMatch(t -> t >= plain.getFinalPay());
+            assertThat(actual.getAlternatives().stream().map(StrategyPlan::getTotalPay).toList())
+                    .as("seed %d", seed).isEqualTo(totals);
+            List<String> signatures = new ArrayList<>();
+            signatures.add(signature(form, plain.getOrders()));
+            for (StrategyPlan plan : expected.getAlternatives()) signatures.add(signature(form, plan.getOrders()));
+            assertThat(signatures).as("seed %d", seed).doesNotHaveDuplicates();
+
+            // 쿠폰별 대안: 그 쿠폰(같은 이름 포함)을 빼고 다시 계산한 최적과 같은 금액
+            for (DiscountResult result : List.of(expected, actual)) {
+                for (CouponAlternative without : result.getWithoutCoupons()) {
+                    String removed = form.getCoupons().get(without.getCouponIndex()).getName();
+                    assertThat(without.getPlan().getOrders()).as("seed %d", seed)
+                            .noneMatch(o -> o.getCouponIndex() >= 0
+                                    && form.getCoupons().get(o.getCouponIndex()).getName().equals(removed));
+
+                    DiscountForm reduced = randomCart(new Random(seed), 2 + (int) (seed % 11), 1 + (int) (seed % 5));
+                    reduced.getCoupons().forEach(c -> c.setActive(!c.getName().equals(removed)));
+                    assertThat(without.getPlan().getTotalPay()).as("seed %d without %s", seed, removed)
+                            .isEqualTo(exhaustive.calculateBestStrategy(reduced).getFinalPay());
+                }
+            }
+            long used = plain.getOrders().stream().filter(o -> o.getCouponIndex() >= 0)
+                    .map(o -> form.getCoupons().get(o.getCouponIndex()).getName()).distinct().count();
+            assertThat(expected.getWithoutCoupons()).as("seed %d", seed).hasSize((int) used);
+        }
+    }
+
+    @Test
+    void parallelSearchMatchesSequential() {
+        DiscountCalculatorService sequential = calculator(properties(SplitEngine.EXHAUSTIVE));
+        DiscountProperties parallelProperties = properties(SplitEngine.EXHAUSTIVE);
+        parallelProperties.getSplit().setParallel(true);
+        parallelProperties.getSplit().setParallelMinProducts(2);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            DiscountCalculatorService parallel = new DiscountCalculatorService(parallelProperties, pool,
+                    new DiscountResultCache(parallelProperties), metrics());
+            for (long seed = 0; seed < 100; seed++) {
+                DiscountForm form = randomCart(new Random(seed), 8 + (int) (seed % 5), (int) (seed % 6));
+
+                // 같은 금액 후보가 여럿이어도 순차 탐색과 같은 분할/쿠폰을 고른다
+                assertThat(parallel.calculateBestStrategy(form)).as("seed %d", seed)
+                        .isEqualTo(sequential.calculateBestStrategy(form));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void approximateSearchReportsValidGap() {
+        DiscountCalculatorService exhaustive = calculator(properties(SplitEngine.EXHAUSTIVE));
+        DiscountProperties coarse = properties(SplitEngine.OPTIMIZED);
+        coarse.getSplit().setExactSumLimit(16);
+        coarse.getSplit().setApproxSumLimit(16);
+        DiscountCalculatorService approximate = calculator(coarse);
+
+        for (long seed = 0; seed < 300; seed++) {
+            DiscountForm form = randomCart(new Random(seed), 2 + (int) (seed % 11), (int) (seed % 6));
+
+            long exact = exhaustive.calculateBestStrategy(form).getFinalPay();
+            DiscountResult result = approximate.calculateBestStrategy(form);
+
+            // 근사 결과는 최적 이상, 보고한 하한은 최적 이하
+            assertThat(result.getFinalPay()).as("seed %d", seed).isGreaterThanOrEqualTo(exact);
+            assertThat(result.getFinalPay() - result.getOptimalityGap()).as("seed %d", seed).isLessThanOrEqualTo(exact);
+        }
+    }
+
+    @Test
+    void largeCartIsSolvedOptimally() {
+        DiscountForm form = randomCart(new Random(42), 40, 10);
+
+        DiscountResult result = service.calculateBestStrategy(form);
+
+        assertThat(result.isOptimal()).isTrue();
+        assertThat(result.getOptimalityGap()).isZero();
+        assertThat(result.getFinalPay()).isLessThanOrEqualTo(result.getBasePay());
+    }
+
+    @Test
+    void generousTimeBudgetKeepsExactResult() {
+        DiscountCalculatorService unbounded = calculator(new DiscountProperties());
+        DiscountCalculatorService bounded = calculator(new DiscountProperties());
+
+        for (long seed = 0; seed < 100; seed++) {
+            DiscountForm form = randomCart(new Random(seed), 2 + (int) (seed % 19), (int) (seed % 6));
+            form.setMaxOrders(3);
+            DiscountResult expected = unbounded.calculateBestStrategy(form);
+
+            // 첫 답은 하한이 "큰" 구간만 건너뛰는 데 쓰이므로 끝까지 탐색하면 같은 분할/쿠폰
+            form.setTimeBudgetMillis(60_000);
+            DiscountResult actual = bounded.calculateBestStrategy(form);
+            assertThat(actual).as("seed %d", seed).isEqualTo(expected);
+            assertThat(actual.isBestEffort()).as("seed %d", seed).isFalse();
+        }
+    }
+
+    @Test
+    void sessionRecalculationMatchesFullCalculation() {
+        DiscountCalculatorService full = calculator(new DiscountProperties());
+        DiscountProperties uncached = new DiscountProperties();
+        uncached.getCache().setEnabled(false);
+        DiscountCalculatorService incremental = calculator(uncached);
+
+        for (long seed = 0; seed < 40; seed++) {
+            Random r = new Random(seed);
+            DiscountForm form = randomCart(r, 6 + (int) (seed % 9), 1 + (int) (seed % 5));
+            form.setMaxOrders(2 + (int) (seed % 2));
+            DiscountCalculatorService.Snapshot snapshot = new DiscountCalculatorService.Snapshot();
+            assertThat(incremental.recalculate(form, snapshot)).isEqualTo(full.calculateBestStrategy(form));
+
+            // 수량 변경 / 쿠폰 사용 여부를 하나씩 바꿔 가며 처음부터 계산한 결과와 비교
+            for (int step = 0; step < 8; step++) {
+                if (r.nextBoolean()) {
+                    ProductItem p = form.getProducts().get(r.nextInt(form.getProducts().size()));
+                    p.setQuantity(1 + r.nextInt(4));
+                } else {
+                    Coupon c = form.getCoupons().get(r.nextInt(form.getCoupons().size()));
+                    c.setActive(!c.isActive());
+                }
+                assertThat(incremental.recalculate(form, snapshot)).as("seed %d step %d", seed, step)
+                        .isEqualTo(full.calculateBestStrategy(form));
+            }
+        }
+    }
+
+    @Test
+    void expiredTimeBudgetReturnsBestEffortSplit() {
+        DiscountProperties properties = properties(SplitEngine.EXHAUSTIVE);
+        DiscountResultCache cache = new DiscountResultCache(properties);
+        DiscountCalculatorService bounded = new DiscountCalculatorService(properties, ForkJoinPool.commonPool(), cache, metrics());
+
+        // 상품 20개 완전 탐색(2^20 x 쿠폰^2)은 1ms 안에 끝나지 않는다
+        DiscountForm form = randomCart(new Random(7), 20, 6);
+        form.setTimeBudgetMillis(1);
+        DiscountResult partial = bounded.calculateBestStrategy(form);
+
+        assertThat(partial.isBestEffort()).isTrue();
+        assertThat(partial.getTwoOrders().getStatus()).isEqualTo(PlanStatus.FOUND);
+        assertThat(partial.getTwoOrders().isPartial()).isTrue();
+        assertThat(partial.getTwoOrders().getOrders()).hasSize(2);
+        // 중간에 멈춘 결과는 캐시하지 않는다
+        assertThat(cache.size()).isZero();
+
+        form.setTimeBudgetMillis(null);
+        DiscountResult exact = bounded.calculateBestStrategy(form);
+        assertThat(exact.isBestEffort()).isFalse();
+        assertThat(exact.isOptimal()).isTrue();
+
+        // 중간 결과는 최적 이상, 보고한 하한은 최적 이하
+        assertThat(partial.getFinalPay()).isGreaterThanOrEqualTo(exact.getFinalPay());
+        assertThat(partial.getFinalPay() - partial.getOptimalityGap()).isLessThanOrEqualTo(exact.getFinalPay());
+    }
+
+    @Test
+    void quantitySplitDividesOneLineAcrossOrders() {
+        DiscountForm form = new DiscountForm();
+        form.getProducts().add(product("모자", 5000, 1, "none", null));
+        form.getProducts().add(product("양말", 10000, 4, "none", null));
+        form.getCoupons().add(coupon("쿠폰1", "fixed", 5000, 20000, 0));
+        form.getCoupons().add(coupon("쿠폰2", "fixed", 5000, 20000, 0));
+        form.setShippingFee(3000);
+        form.setFreeShippingThreshold(15000);
+
+        // 라인 단위: 양말 4개를 한 주문에 → 1번에 구매 45,000 - 5,000
+        DiscountResult whole = service.calculateBestStrategy(form);
+        assertThat(whole.getFinalPay()).isEqualTo(40_000);
+
+        // 수량 단위: 양말을 2개씩 나눠 두 주문 모두 쿠폰 최소 금액/무료배송 충족 (20,000 + 15,000)
+        form.setSplitQuantities(true);
+        DiscountResult split = service.calculateBestStrategy(form);
+        assertThat(split.getFinalPay()).isEqualTo(35_000);
+        assertThat(split.getOrderCount()).isEqualTo(2);
+        assertThat(split.isOptimal()).isTrue();
+        assertThat(split.getOrders()).extracting(OrderPlan::getCouponIndex).containsExactlyInAnyOrder(0, 1);
+
+        int[] units = new int[form.getProducts().size()];
+        for (OrderPlan order : split.getOrders()) {
+            assertThat(order.getQuantities()).hasSameSizeAs(order.getItemIndices());
+            for (int k = 0; k < order.getItemIndices().length; k++) units[order.getItemIndices()[k]] += order.getQuantities()[k];
+        }
+        assertThat(units).containsExactly(1, 4);
+
+        String detail = formatter.detail(form, split);
+        assertThat(detail).contains("수량 분할 (A=[");
+        assertThat(detail).containsPattern("양말 x[1-3]");
+    }
+
+    @Test
+    void quantitySplitMatchesUnitEnumeration() {
+        Random r = new Random(18);
+        for (int k = 0; k < 300; k++) {
+            DiscountForm form = randomCart(r, 1 + r.nextInt(3), 1 + r.nextInt(4));
+            for (ProductItem p : form.getProducts()) {
+                p.setQuantity(1 + r.nextInt(5));
+                if (r.nextInt(4) == 0) {
+                    p.setDiscountType("bundle");
+                    p.setBundleBuy(1 + r.nextInt(2));
+                    p.setBundleFree(1);
+                }
+            }
+            DiscountResult whole = service.calculateBestStrategy(form);
+            form.setSplitQuantities(true);
+            DiscountResult split = service.calculateBestStrategy(form);
+
+            // 작은 장바구니는 단위 중간에서 자르는 분할(percent 절사, bundle 묶음 깨기)까지 모두 본 최적
+            long optimum = Math.min(unitEnumeration(form), split.getSingleOrder().getTotalPay());
+            assertThat(split.getFinalPay()).as("cart %d", k).isEqualTo(optimum);
+            assertThat(split.isOptimal()).as("cart %d", k).isTrue();
+            assertThat(split.getFinalPay()).as("cart %d", k).isLessThanOrEqualTo(whole.getFinalPay());
+            long orders = split.getOrders().stream().mapToLong(OrderPlan::getTotalPay).sum();
+            assertThat(orders).isEqualTo(split.getFinalPay());
+        }
+    }
+
+    @Test
+    void quantitySplitReportsGapWhenUnitsAreNotCovered() {
+        // 수량 조합이 많아(65 x 65) 품목 탐색만 하는 장바구니: 2개 단위 percent 라인은 홀수 개로 나눌 수 없다
+        Random r = new Random(7);
+        int beaten = 0;
+        for (int k = 0; k < 40; k++) {
+            DiscountForm form = randomCart(r, 2, 1 + r.nextInt(4));
+            form.getProducts().set(0, product("P0", 36100, 64, "percent", 30.5));
+            form.getProducts().get(1).setQuantity(64);
+            form.setSplitQuantities(true);
+            DiscountResult split = service.calculateBestStrategy(form);
+
+            long optimum = Math.min(unitEnumeration(form), split.getSingleOrder().getTotalPay());
+            assertThat(split.getFinalPay()).as("cart %d", k).isGreaterThanOrEqualTo(optimum);
+            assertThat(split.getFinalPay() - split.getOptimalityGap()).as("cart %d", k).isLessThanOrEqualTo(optimum);
+            if (split.getFinalPay() > optimum) {
+                beaten++;
+                assertThat(split.isOptimal()).as("cart %d", k).isFalse();
+            }
+        }
+        // 품목 탐색보다 싼 수량 분할이 실제로 있는 장바구니도 포함
+        assertThat(beaten).isPositive();
+    }
+
+    /* ------------------------
+       테스트 입력
+       ------------------------ */
+    static DiscountForm splitCart() {
+        DiscountForm f = new DiscountForm();
+        f.getProducts().add(product("셔츠", 39000, 1, "percent", 10.0));
+        f.getProducts().add(product("바지", 45000, 1, "none", null));
+        f.getProducts().add(product("양말", 3000, 3, "fixed", 500.0));
+        f.getProducts().add(product("모자", 25000, 1, null, null));
+        f.getCoupons().add(coupon("만원쿠폰", "fixed", 10000, 50000, 0));
+        f.getCoupons().add(coupon("15%쿠폰", "percent", 15, 30000, 8000));
+        f.getCoupons().add(coupon("3천원쿠폰", "fixed", 3000, 20000, 0));
+        f.setThresholdAmount(70000);
+        f.setThresholdOff(5000);
+        f.setPromoBeforeCoupon(true);
+        f.setShippingFee(3000);
+        f.setFreeShippingThreshold(50000);
+        return f;
+    }
+
+    static DiscountForm singleCart() {
+        DiscountForm f = new DiscountForm();
+        f.getProducts().add(product("노트북", 1200000, 1, "percent", 5.0));
+        f.getProducts().add(product("마우스", 30000, 1, "fixed", 2000.0));
+        f.getCoupons().add(coupon("10%쿠폰", "percent", 10, 100000, 50000));
+        f.setThresholdAmount(0);
+        f.setThresholdOff(0);
+        f.setPromoBeforeCoupon(false);
+        f.setShippingFee(2500);
+        f.setFreeShippingThreshold(30000);
+        return f;
+    }
+
+    static DiscountForm randomCart(Random r, int products, int coupons) {
+        DiscountForm f = new DiscountForm();
+        String[] types = {"none", "fixed", "percent"};
+        for (int i = 0; i < products; i++) {
+            String type = types[r.nextInt(types.length)];
+            double value = "percent".equals(type) ? r.nextInt(40) + (r.nextBoolean() ? 0.5 : 0) : r.nextInt(3000);
+            f.getProducts().add(product("P" + i, (r.nextInt(900) + 1) * (r.nextBoolean() ? 100 : 7), 1 + r.nextInt(3), type, value));
+        }
+        for (int i = 0; i < coupons; i++) {
+            boolean percent = r.nextBoolean();
+            // 같은 이름 쿠폰도 섞어서 중복 사용 제한을 함께 확인
+            String name = r.nextInt(5) == 0 ? "C0" : "C" + i;
+            f.getCoupons().add(coupon(name, percent ? "percent" : "fixed",
+                    percent ? 5 + r.nextInt(25) : 1000 * (1 + r.nextInt(15)),
+                    10000 * r.nextInt(15), percent ? 3000 * r.nextInt(4) : 0));
+        }
+        f.setThresholdAmount(10000 * r.nextInt(12));
+        f.setThresholdOff(1000 * r.nextInt(8));
+        f.setPromoBeforeCoupon(r.nextBoolean());
+        f.setShippingFee(500 * r.nextInt(7));
+        f.setFreeShippingThreshold(10000 * r.nextInt(8));
+        return f;
+    }
+
+    static DiscountCalculatorService calculator(DiscountProperties properties) {
+        return new DiscountCalculatorService(properties, ForkJoinPool.commonPool(), new DiscountResultCache(properties), metrics());
+    }
+
+    static DiscountMetrics metrics() {
+        return new DiscountMetrics(new SimpleMeterRegistry());
+    }
+
+    static DiscountProperties properties(SplitEngine engine) {
+        DiscountProperties properties = new DiscountProperties();
+        properties.getSplit().setEngine(engine);
+        return properties;
+    }
+
+    static ProductItem product(String name, int price, int qty, String discountType, Double discountValue) {
+        ProductItem p = new ProductItem();
+        p.setName(name);
+        p.setPrice(price);
+        p.setQuantity(qty);
+        p.setDiscountType(discountType);
+        p.setDiscountValue(discountValue);
+        return p;
+    }
+
+    static Coupon coupon(String name, String type, double value, int minSpend, int maxDiscount) {
+        Coupon c = new Coupon();
+        c.setName(name);
+        c.setType(type);
+        c.setValue(value);
+        c.setMinSpend(minSpend);
+        c.setMaxDiscount(maxDiscount);
+        return c;
+    }
+
+    static PromoTier tier(int amount, int off) {
+        PromoTier t = new PromoTier();
+        t.setAmount(amount);
+        t.setOff(off);
+        return t;
+    }
+
+    // 주문별 "상품명들/쿠폰명" (위치가 아닌 이름으로 비교)
+    private static List<String> orderNames(DiscountForm form, DiscountResult result) {
+        return result.getOrders().stream()
+                .map(o -> Arrays.stream(o.getItemIndices())
+                        .mapToObj(i -> form.getProducts().get(i).getName())
+                        .sorted()
+                        .collect(Collectors.joining(","))
+                        + "/" + (o.getCouponIndex() < 0 ? "-" : form.getCoupons().get(o.getCouponIndex()).getName()))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    // 주문 수 + 사용 쿠폰 이름 (순서 무관)
+    private static String signature(DiscountForm form, List<OrderPlan> orders) {
+        return orders.size() + ":" + orders.stream()
+                .map(o -> o.getCouponIndex() < 0 ? "-" : form.getCoupons().get(o.getCouponIndex()).getName())
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+
+    // 라인마다 A 주문 수량 0~수량 전부를 나열한 2주문 최적 (두 주문 모두 1개 이상)
+    private static long unitEnumeration(DiscountForm form) {
+        List<Coupon> options = new ArrayList<>();
+        options.add(null);
+        options.addAll(form.getCoupons());
+        OrderRules rules = new OrderRules(options,
+                OrderRules.tiers(form.getThresholdAmount(), form.getThresholdOff(), form.getPromoTiers()),
+                form.getPromoBeforeCoupon(), form.getShippingFee(), form.getFreeShippingThreshold());
+        List<ProductItem> products = form.getProducts();
+        int n = products.size();
+        int[] qty = new int[n];
+        long best = Long.MAX_VALUE;
+        while (true) {
+            long merchA = 0, merchB = 0;
+            int unitsA = 0, unitsB = 0;
+            for (int i = 0; i < n; i++) {
+                ProductItem p = products.get(i);
+                LineDiscount discount = LineDiscount.compile(p);
+                merchA += discount.apply(p.getPrice(), qty[i]);
+                merchB += discount.apply(p.getPrice(), p.getQuantity() - qty[i]);
+                unitsA += qty[i];
+                unitsB += p.getQuantity() - qty[i];
+            }
+            if (unitsA > 0 && unitsB > 0) {
+                for (int a = 0; a < options.size(); a++) {
+                    for (int b = 0; b < options.size(); b++) {
+                        if (a > 0 && b > 0 && options.get(a).getName().equals(options.get(b).getName())) continue;
+                        best = Math.min(best, rules.total(merchA, a) + rules.total(merchB, b));
+                    }
+                }
+            }
+            int i = 0;
+            while (i < n && qty[i] == products.get(i).getQuantity()) qty[i++] = 0;
+            if (i == n) return best;
+            qty[i]++;
+        }
+    }
+
+    private static String golden(String name) throws IOException {
+        try (InputStream in = DiscountCalculatorServiceTests.class.getResourceAsStream("/golden/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.config.DiscountProperties;
+import com.jiwoo.noaats.domain.DiscountResult;
+import com.jiwoo.noaats.domain.PlanStatus;
+import com.jiwoo.noaats.form.DiscountForm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.jiwoo.noaats.service.DiscountCalculatorServiceTests.randomCart;
+import static com.jiwoo.noaats.service.DiscountCalculatorServiceTests.singleCart;
+import static com.jiwoo.noaats.service.DiscountCalculatorServiceTests.splitCart;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiscountRequestExecutorTests {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final DiscountProperties properties = new DiscountProperties();
+    private final DiscountMetrics metrics = new DiscountMetrics(registry);
+    private final DiscountCalculatorService calculator = new DiscountCalculatorService(properties,
+            ForkJoinPool.commonPool(), new DiscountResultCache(properties), metrics);
+
+    @Test
+    void progressReportsEachFinishedStrategy() {
+        DiscountForm form = splitCart();
+        form.setMaxOrders(3);
+        List<DiscountResult> partials = new ArrayList<>();
+
+        DiscountResult result = calculator.calculateBestStrategy(form, Deadline.NONE, partials::add);
+
+        assertThat(partials).hasSize(2);
+        assertThat(partials.get(0).getTwoOrders().getStatus()).isEqualTo(PlanStatus.TIMED_OUT);
+        assertThat(partials.get(0).getManyOrders().getStatus()).isEqualTo(PlanStatus.TIMED_OUT);
+        assertThat(partials.get(1).getTwoOrders().getStatus()).isEqualTo(PlanStatus.FOUND);
+        assertThat(partials.get(1).getManyOrders().getStatus()).isEqualTo(PlanStatus.TIMED_OUT);
+        // 중간 결과의 차이는 실제 최적까지의 거리 이상
+        for (DiscountResult partial : partials) {
+            assertThat(partial.isOptimal()).isFalse();
+            assertThat(partial.getFinalPay() - partial.getOptimalityGap()).isLessThanOrEqualTo(result.getFinalPay());
+        }
+        assertThat(result.getManyOrders().getStatus()).isEqualTo(PlanStatus.FOUND);
+        assertThat(result.isOptimal()).isTrue();
+    }
+
+    @Test
+    void timedOutRequestReturnsBestSoFarAndSmallCartsStayInline() throws Exception {
+        DiscountProperties.Compute compute = properties.getCompute();
+        compute.setEnabled(true);
+        compute.setInlineMaxProducts(3);
+        compute.setTimeout(Duration.ofMillis(200));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        DiscountRequestExecutor executor = new DiscountRequestExecutor(calculator, properties, pool, metrics);
+
+        // 계산 풀을 막아 둔다: 다음 요청은 대기열에서 시간 제한을 넘긴다
+        CountDownLatch release = new CountDownLatch(1);
+        pool.submit(() -> {
+            release.await();
+            return null;
+        });
+
+        DiscountResult first = executor.calculate(splitCart());
+        assertThat(first.getOrderCount()).isEqualTo(1);
+        assertThat(first.getFinalPay()).isEqualTo(97_600);
+        assertThat(first.getTwoOrders().getStatus()).isEqualTo(PlanStatus.TIMED_OUT);
+        assertThat(first.isOptimal()).isFalse();
+        assertThat(first.getFinalPay() - first.getOptimalityGap()).isLessThanOrEqualTo(94_210);
+
+        // 응답한 요청의 계산은 대기열에서 빠진다
+        assertThat(pool.getQueue()).isEmpty();
+
+        // 대기열이 가득 차면 거절, 작은 장바구니는 풀과 무관하게 바로 계산
+        pool.submit(() -> {
+            release.await();
+            return null;
+        });
+        assertThatThrownBy(() -> executor.calculate(splitCart())).isInstanceOf(RejectedExecutionException.class);
+        DiscountForm small = singleCart();
+        assertThat(executor.calculate(small).getFinalPay()).isEqualTo(1_118_000);
+
+        // 시간 제한을 넘긴 계산은 돌지 않았으므로 캐시에도 없다 (막아 둔 작업 2개만 실행)
+        release.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(pool.getCompletedTaskCount()).isEqualTo(2);
+
+        assertThat(registry.get("discount.compute").tag("route", "inline").counter().count()).isEqualTo(1);
+        assertThat(registry.get("discount.compute").tag("route", "timeout").counter().count()).isEqualTo(1);
+        assertThat(registry.get("discount.compute").tag("route", "rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void timedOutRequestFreesItsPoolThread() throws Exception {
+        DiscountProperties.Compute compute = properties.getCompute();
+        compute.setEnabled(true);
+        compute.setInlineMaxProducts(3);
+        compute.setTimeout(Duration.ofMillis(100));
+        properties.getSplit().setPartitionMaxProducts(16);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1));
+        DiscountRequestExecutor executor = new DiscountRequestExecutor(calculator, properties, pool, metrics);
+
+        // 끝까지 탐색하면 수 초 걸리는 장바구니 (상품 16개, 최대 4주문)
+        DiscountForm large = randomCart(new Random(1), 16, 6);
+        large.setMaxOrders(4);
+        DiscountResult timedOut = executor.calculate(large);
+        assertThat(timedOut.isBestEffort()).isTrue();
+
+        // 풀 계산도 시간 제한에서 멈춰 스레드를 곧 돌려준다
+        long waitUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+        while (pool.getCompletedTaskCount() < 1 && System.nanoTime() < waitUntil) Thread.sleep(5);
+        assertThat(pool.getCompletedTaskCount()).isEqualTo(1);
+        assertThat(pool.getActiveCount()).isZero();
+
+        // 다음 큰 장바구니는 기다리지 않고 풀에서 끝까지 계산
+        assertThat(executor.calculate(splitCart()).getFinalPay()).isEqualTo(94_210);
+        pool.shutdown();
+
+        assertThat(registry.get("discount.compute").tag("route", "timeout").counter().count()).isEqualTo(1);
+        assertThat(registry.get("discount.compute").tag("route", "pooled").counter().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.jiwoo.noaats.service;
+
+import com.jiwoo.noaats.domain.Coupon;
+import com.jiwoo.noaats.domain.ProductItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 금액 정책(README 4.3)을 BigDecimal로 직접 계산한 값과 비교.
+ * - 퍼센트 금액은 원 단위 절사, 정률 값은 0~100%, 0원 미만은 0원
+ */
+class MoneyTests {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    @Test
+    void percentOfMatchesExactFloor() {
+        Random r = new Random(1);
+        for (int k = 0; k < 200_000; k++) {
+            long amount = k % 2 == 0 ? r.nextInt(1_000_000) : Math.abs(r.nextLong() >> r.nextInt(64));
+            long bp = r.nextInt(10_001);
+
+            BigDecimal expected = BigDecimal.valueOf(amount).multiply(BigDecimal.valueOf(bp))
+                    .divide(BigDecimal.valueOf(Money.FULL_BP), 0, RoundingMode.FLOOR);
+            assertThat(Money.percentOf(amount, bp)).as("%d x %d bp", amount, bp).isEqualTo(expected.longValueExact());
+        }
+        // double이면 28원이 되는 경우
+        assertThat(Money.percentOf(100, Money.bp(29.0))).isEqualTo(29);
+    }
+
+    @Test
+    void percentValuesAreClampedAndKeptToBasisPoints() {
+        assertThat(Money.bp(null)).isZero();
+        assertThat(Money.bp(-5.0)).isZero();
+        assertThat(Money.bp(Double.NaN)).isZero();
+        assertThat(Money.bp(150.0)).isEqualTo(Money.FULL_BP);
+        assertThat(Money.bp(12.5)).isEqualTo(1250);
+        assertThat(Money.bp(0.29)).isEqualTo(29);
+        assertThat(Money.bp(33.333)).isEqualTo(3333);
+        // 0.01% 아래 자리는 입력한 10진수 기준 반올림 (double 곱셈이면 100)
+        assertThat(Money.bp(1.005)).isEqualTo(101);
+        assertThat(Money.bp(0.125)).isEqualTo(13);
+    }
+
+    @Test
+    void productDiscountsFollowTruncationPolicy() {
+        Random r = new Random(2);
+        for (int k = 0; k < 50_000; k++) {
+            int price = r.nextInt(500_000);
+            int qty = 1 + r.nextInt(20);
+            double pct = r.nextInt(120_000) / 1000.0 - 5; // 범위 밖 값, 0.01% 아래 자리 포함
+            ProductItem p = new ProductItem();
+            p.setPrice(price);
+            p.setQuantity(qty);
+            p.setDiscountType("percent");
+            p.setDiscountValue(pct);
+
+            // 라인 전체 (100 - pct)% 금액을 원 단위 절사
+            BigDecimal rate = HUNDRED.subtract(clampPercent(pct));
+            long expected = BigDecimal.valueOf((long) price * qty).multiply(rate)
+                    .divide(HUNDRED, 0, RoundingMode.FLOOR).longValueExact();
+            assertThat(LineDiscount.compile(p).apply(price, qty)).as("%d x %d, %s%%", price, qty, pct).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void couponsFollowTruncationPolicy() {
+        Random r = new Random(3);
+        for (int k = 0; k < 2_000; k++) {
+            Coupon c = new Coupon();
+            c.setName("C");
+            c.setType("percent");
+            c.setValue(r.nextInt(120_000) / 1000.0 - 5);
+            c.setMinSpend(r.nextInt(4) == 0 ? 0 : 1000 * r.nextInt(100));
+            c.setMaxDiscount(r.nextBoolean() ? 0 : 100 * r.nextInt(500));
+            List<Coupon> options = new ArrayList<>(Arrays.asList(null, c));
+            OrderRules rules = new OrderRules(options, OrderRules.tiers(0, 0, null), true, 0, 0);
+
+            for (int j = 0; j < 50; j++) {
+                long amount = r.nextInt(2_000_000);
+                long expected = amount;
+                if (amount >= c.getMinSpend()) {
+                    long off = BigDecimal.valueOf(amount).multiply(clampPercent(c.getValue()))
+                            .divide(HUNDRED, 0, RoundingMode.FLOOR).longValueExact();
+                    if (c.getMaxDiscount() > 0) off = Math.min(off, c.getMaxDiscount());
+                    expected = Math.max(0, amount - off);
+                }
+                assertThat(rules.total(amount, 1)).as("%d, %s", amount, c).isEqualTo(expected);
+                // 하한은 어떤 쿠폰으로도 넘지 않는다
+                assertThat(rules.lowerBound(amount)).isLessThanOrEqualTo(expected);
+            }
+        }
+    }
+
+    // 입력 %를 0~100, 0.01% 단위(반올림)로
+    private static BigDecimal clampPercent(double pct) {
+        if (pct <= 0) return BigDecimal.ZERO;
+        if (pct >= 100) return HUNDRED;
+        return BigDecimal.valueOf(pct).setScale(2, RoundingMode.HALF_UP);
+    }
+}
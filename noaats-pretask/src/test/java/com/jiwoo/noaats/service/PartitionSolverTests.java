@@ -0,0 +1,129 @@
+package com.jiwoo.noaats.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionSolverTests {
+
+    @Test
+    void matchesBruteForceOverLabelledOrders() {
+        for (long seed = 0; seed < 150; seed++) {
+            Random r = new Random(seed);
+            int n = 1 + r.nextInt(7);
+            int m = 1 + r.nextInt(5);
+            int maxOrders = 2 + r.nextInt(3);
+            int minOrders = 1 + r.nextInt(maxOrders);
+
+            long[] lines = new long[n];
+            for (int i = 0; i < n; i++) lines[i] = 1000L * (1 + r.nextInt(30));
+
+            long[] minSpend = new long[m];
+            long[] off = new long[m];
+            int[] name = new int[m];
+            for (int o = 1; o < m; o++) {
+                minSpend[o] = 5000L * r.nextInt(8);
+                off[o] = 1000L * (1 + r.nextInt(6));
+                name[o] = r.nextInt(3); // 같은 이름 = 한 번만 사용
+            }
+            boolean[][] conflict = new boolean[m][m];
+            for (int a = 1; a < m; a++) {
+                for (int b = 1; b < m; b++) conflict[a][b] = name[a] == name[b];
+            }
+
+            SplitOptimizer.OrderCost cost = new SplitOptimizer.OrderCost() {
+                @Override
+                public long total(long merch, int option) {
+                    long amount = merch;
+                    if (option > 0 && amount >= minSpend[option]) amount = Math.max(0, amount - off[option]);
+                    return amount + (amount >= 30000 ? 0 : 3000);
+                }
+
+                @Override
+                public long[] breakpoints(int option, long maxMerch) {
+                    return new long[0];
+                }
+            };
+
+            PartitionSolver.Result result = new PartitionSolver(lines, cost, conflict, minOrders, maxOrders).solve();
+            long expected = bruteForce(lines, cost, conflict, minOrders, maxOrders);
+
+            if (expected == Long.MAX_VALUE) {
+                assertThat(result).as("seed %d", seed).isNull();
+                continue;
+            }
+            assertThat(result).as("seed %d", seed).isNotNull();
+            assertThat(result.totalPay).as("seed %d", seed).isEqualTo(expected);
+
+            // 역추적한 주문 구성이 실제로 그 금액을 만드는지
+            long covered = 0, total = 0;
+            for (int i = 0; i < result.masks.length; i++) {
+                long mask = result.masks[i];
+                assertThat(mask).as("seed %d", seed).isNotZero();
+                assertThat(covered & mask).as("seed %d", seed).isZero();
+                covered |= mask;
+                long merch = 0;
+                for (int b = 0; b < n; b++) if ((mask & (1L << b)) != 0) merch += lines[b];
+                total += cost.total(merch, result.options[i]);
+                for (int j = 0; j < i; j++) {
+                    assertThat(conflict[result.options[i]][result.options[j]]).as("seed %d", seed).isFalse();
+                }
+            }
+            assertThat(covered).isEqualTo((1L << n) - 1);
+            assertThat(total).isEqualTo(expected);
+            assertThat(result.masks.length).isBetween(minOrders, maxOrders);
+        }
+    }
+
+    // 라인마다 주문 번호를 붙이고(K^N), 주문마다 쿠폰을 고르는(M^K) 단순 탐색
+    private static long bruteForce(long[] lines, SplitOptimizer.OrderCost cost, boolean[][] conflict,
+                                   int minOrders, int maxOrders) {
+        int n = lines.length;
+        int m = conflict.length;
+        long best = Long.MAX_VALUE;
+        int[] label = new int[n];
+        int labellings = (int) Math.pow(maxOrders, n);
+        for (int code = 0; code < labellings; code++) {
+            int c = code;
+            for (int i = 0; i < n; i++) {
+                label[i] = c % maxOrders;
+                c /= maxOrders;
+            }
+            long[] merch = new long[maxOrders];
+            boolean[] used = new boolean[maxOrders];
+            for (int i = 0; i < n; i++) {
+                merch[label[i]] += lines[i];
+                used[label[i]] = true;
+            }
+            int k = 0;
+            for (boolean u : used) if (u) k++;
+            if (k < minOrders) continue;
+
+            int[] option = new int[maxOrders];
+            int assignments = (int) Math.pow(m, maxOrders);
+            for (int a = 0; a < assignments; a++) {
+                int x = a;
+                for (int o = 0; o < maxOrders; o++) {
+                    option[o] = x % m;
+                    x /= m;
+                }
+                boolean ok = true;
+                long total = 0;
+                for (int o = 0; o < maxOrders && ok; o++) {
+                    if (!used[o]) {
+                        ok = option[o] == 0;
+                        continue;
+                    }
+                    for (int p = 0; p < o; p++) {
+                        if (used[p] && conflict[option[o]][option[p]]) ok = false;
+                    }
+                    total += cost.total(merch[o], option[o]);
+                }
+                if (ok) best = Math.min(best, total);
+            }
+        }
+        return best;
+    }
+}